@@ -0,0 +1,89 @@
+package com.flashcards.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.flashcards.models.Card;
+import com.flashcards.models.Model;
+
+/**
+ * Benchmarks of reading and writing one card.
+ * 
+ * <p>
+ * Reads go round all cards of the deck. With <code>cache</code> off,
+ * the card cache is disabled, so every read parses the file.
+ * </p>
+ * 
+ * @see {@link Model#getCard(File)}
+ * @see {@link Model#setCard(Card, File)}
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardBenchmark {
+
+    @Param({ "1000" })
+    public int cards;
+
+    @Param({ "1", "10", "100" })
+    public int lines;
+
+    @Param({ "80" })
+    public int lineLength;
+
+    @Param({ "false", "true" })
+    public boolean cache;
+
+    private File folder;
+    private File[] files;
+    private int next;
+    private Card card;
+    private File target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        folder = DeckGenerator.generate(cards, lines, lineLength, 42);
+        files = folder.listFiles();
+        card = DeckGenerator.card(new Random(7), lines, lineLength);
+        target = new File(folder, "target." + Card.EXTENSION);
+        Model.getCardCache().clear();
+        Model.getCardCache().setMaxSize(cache ? 256L << 20 : 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Model.getCardCache().clear();
+        DeckGenerator.delete(folder);
+    }
+
+    @Benchmark
+    public Card getCard() {
+        File file = files[next];
+        next = (next + 1) % files.length;
+        return Model.getCard(file);
+    }
+
+    @Benchmark
+    public void setCard() {
+        Model.setCard(card, target);
+    }
+}
@@ -0,0 +1,98 @@
+package com.flashcards.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.flashcards.models.Card;
+import com.flashcards.models.Model;
+
+/**
+ * Benchmarks of loading a whole deck.
+ * 
+ * <p>
+ * <code>cold</code> deletes the deck index before each load, so every
+ * card is parsed; <code>warm</code> reads cards through the index.
+ * The card cache is disabled.
+ * </p>
+ * 
+ * @see {@link Model#getCardsList(File, int, java.util.List)}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeckBenchmark {
+
+    // Deck index file (see com.flashcards.models.DeckIndex)
+    private static final String INDEX_NAME = ".cards.index";
+
+    @Param({ "1000", "10000" })
+    public int cards;
+
+    @Param({ "10" })
+    public int lines;
+
+    @Param({ "80" })
+    public int lineLength;
+
+    @Param({ "1", "4" })
+    public int parallelism;
+
+    private File folder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        folder = DeckGenerator.generate(cards, lines, lineLength, 42);
+        Model.getCardCache().clear();
+        Model.getCardCache().setMaxSize(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DeckGenerator.delete(folder);
+    }
+
+    /**
+     * State that deletes the deck index before each load.
+     */
+    @State(Scope.Thread)
+    public static class NoIndex {
+
+        @Setup(Level.Invocation)
+        public void deleteIndex(DeckBenchmark deck) {
+            new File(deck.folder, INDEX_NAME).delete();
+        }
+    }
+
+    @Benchmark
+    public Card[] cold(NoIndex noIndex) {
+        return Model.getCardsList(folder, parallelism, null);
+    }
+
+    @Benchmark
+    public Card[] warm() {
+        return Model.getCardsList(folder, parallelism, null);
+    }
+
+    @Benchmark
+    public Card[] lazy() {
+        return Model.getLazyCardsList(folder);
+    }
+}
@@ -0,0 +1,92 @@
+package com.flashcards.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import com.flashcards.models.Card;
+import com.flashcards.models.Model;
+
+/**
+ * Generator of synthetic decks, for benchmarks.
+ * 
+ * <p>
+ * Cards are written with {@link Model#setCard(Card, File)}, so they have
+ * the same format as the app cards. Text is random words of lower case
+ * letters; the same seed gives the same deck.
+ * </p>
+ */
+public final class DeckGenerator {
+
+    private DeckGenerator() {}
+
+    /**
+     * Generates a deck in a new temporary folder.
+     * 
+     * @param cards      the number of cards
+     * @param lines      the number of lines of question and of answer
+     * @param lineLength the number of characters of each line
+     * @param seed       the random seed
+     * @return the deck folder
+     * @throws IOException if an I/O error occurs
+     */
+    public static File generate(int cards, int lines, int lineLength, long seed) throws IOException {
+        File folder = Files.createTempDirectory("flashcards-bench").toFile();
+        Random random = new Random(seed);
+        for (int i = 0; i < cards; i++) {
+            Model.setCard(card(random, lines, lineLength), new File(folder, String.format("card %06d.%s", i, Card.EXTENSION)));
+        }
+        return folder;
+    }
+
+    /**
+     * Makes a card with random text (without file).
+     * 
+     * @param random     the random source
+     * @param lines      the number of lines of question and of answer
+     * @param lineLength the number of characters of each line
+     * @return the card
+     */
+    public static Card card(Random random, int lines, int lineLength) {
+        return new Card(null, text(random, lines, lineLength), text(random, lines, lineLength));
+    }
+
+    /**
+     * Makes random text.
+     * 
+     * @param random     the random source
+     * @param lines      the number of lines
+     * @param lineLength the number of characters of each line
+     * @return the text
+     */
+    public static String text(Random random, int lines, int lineLength) {
+        StringBuilder text = new StringBuilder(lines * (lineLength + 1));
+        for (int line = 0; line < lines; line++) {
+            if (line > 0) {
+                text.append('\n');
+            }
+            for (int i = 0; i < lineLength; i++) {
+                text.append(random.nextInt(6) == 0 && i > 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Deletes a deck folder and its files.
+     * 
+     * @param folder the deck folder
+     * @throws IOException if an I/O error occurs
+     */
+    public static void delete(File folder) throws IOException {
+        try (Stream<Path> paths = Files.walk(folder.toPath())) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
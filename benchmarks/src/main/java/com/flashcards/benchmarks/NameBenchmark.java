@@ -0,0 +1,63 @@
+package com.flashcards.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.flashcards.models.Card;
+import com.flashcards.models.Model;
+
+/**
+ * Benchmarks of file name helpers and card allocation,
+ * which run once per listed card.
+ * 
+ * @see {@link Model#getFileName(File)}
+ * @see {@link Card#toString()}
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NameBenchmark {
+
+    private File file = new File("cards", "Kanji verbs 0042." + Card.EXTENSION);
+    private String name = file.getName();
+    private String question = "What does 食べる mean?";
+    private String answer = "To eat";
+
+    @Benchmark
+    public String getFileName() {
+        return Model.getFileName(file);
+    }
+
+    @Benchmark
+    public String getFileExtension() {
+        return Model.getFileExtension(name);
+    }
+
+    @Benchmark
+    public Card newCard() {
+        return new Card(file, question, answer);
+    }
+
+    @Benchmark
+    public Card newLazyCard() {
+        return new Card(file);
+    }
+
+    @Benchmark
+    public String cardName() {
+        return new Card(file).toString();
+    }
+}
@@ -1,5 +1,8 @@
 package com.flashcards;
 
+import javax.swing.SwingUtilities;
+
+import com.flashcards.controllers.CommandLine;
 import com.flashcards.views.GUI;
 
 /**
@@ -13,12 +16,19 @@ import com.flashcards.views.GUI;
  * This app can also create, edit, save and open cards.
  * </p>
  * 
+ * <p>
+ * With arguments, runs a command without GUI (see {@link CommandLine}).
+ * </p>
+ * 
  * @author Vítor Menezes Oliveira
  * @version 1.0
  */
 public class App {
 
     public static void main(String args[]) {
+        if (args.length > 0) {
+            System.exit(CommandLine.run(args));
+        }
         new App();
     }
 
@@ -28,7 +38,7 @@ public class App {
      * @see {@link com.flashcards.views.GUI}
      */
     App() {
-        new GUI();
+        SwingUtilities.invokeLater(GUI::new);
     }
 
 }
\ No newline at end of file
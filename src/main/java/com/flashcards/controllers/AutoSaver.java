@@ -0,0 +1,83 @@
+package com.flashcards.controllers;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.flashcards.models.Card;
+import com.flashcards.models.Model;
+
+/**
+ * Write-behind saver of cards.
+ * 
+ * <p>
+ * Cards are written by a single background thread. Saves of the same card
+ * made while a write is pending are collapsed, so only the last version
+ * is written. Pending writes are finished before the app exits.
+ * </p>
+ * 
+ * @see {@link com.flashcards.models.Model#setCards}
+ */
+public final class AutoSaver {
+
+    // Cards waiting to be written (by file)
+    private final Map<File, Card> pending = new LinkedHashMap<>();
+
+    // Writer thread
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "card-autosave");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates an auto saver.
+     */
+    public AutoSaver() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "card-autosave-shutdown"));
+    }
+
+    /**
+     * Saves a card in background, in its file.
+     * 
+     * @param card the card to save (must not be changed after)
+     */
+    public void save(Card card) {
+        synchronized (pending) {
+            boolean idle = pending.isEmpty();
+            pending.put(card.getFile(), card);
+            if (idle) {
+                writer.execute(this::flush);
+            }
+        }
+    }
+
+    /**
+     * Writes the pending cards (writer thread).
+     */
+    private void flush() {
+        List<Card> cards;
+        synchronized (pending) {
+            cards = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        Model.setCards(cards);
+    }
+
+    /**
+     * Finishes the pending writes and stops the writer thread.
+     */
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
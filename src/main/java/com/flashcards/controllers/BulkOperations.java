@@ -0,0 +1,254 @@
+package com.flashcards.controllers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import com.flashcards.models.Card;
+import com.flashcards.models.Model;
+
+/**
+ * Operations on many cards at once: delete, move, rename and duplicate.
+ * 
+ * <p>
+ * New names are chosen up front, in the cards order, so results don't
+ * depend on thread timing. File operations then run in parallel on a
+ * bounded pool. A card that fails doesn't stop the others: it's reported
+ * in the {@link Result}, which also lists every change, so a view can
+ * apply all of them in one update.
+ * </p>
+ * 
+ * @see {@link Controller}
+ */
+public class BulkOperations {
+
+    // Max file operations at the same time
+    private static final int PARALLELISM = Integer.getInteger("flashcards.bulkParallelism",
+            2 * Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Result of a bulk operation.
+     */
+    public static class Result {
+
+        private final List<File> removed = Collections.synchronizedList(new ArrayList<>());
+        private final List<Card> added = Collections.synchronizedList(new ArrayList<>());
+        private final Map<File, IOException> failures = new ConcurrentHashMap<>();
+
+        // Folders to sync once all cards are done
+        private final Set<File> folders = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Gets the card files that don't exist anymore.
+         * 
+         * @return the removed files
+         */
+        public List<File> getRemoved() {
+            return removed;
+        }
+
+        /**
+         * Gets the cards created (lazy).
+         * 
+         * @return the added cards
+         */
+        public List<Card> getAdded() {
+            return added;
+        }
+
+        /**
+         * Gets the cards that failed, with the reason.
+         * 
+         * @return the failures, by card file
+         */
+        public Map<File, IOException> getFailures() {
+            return failures;
+        }
+    }
+
+    /**
+     * A file operation of one card.
+     */
+    private interface Operation {
+        void run(File file, File target, Result result) throws IOException;
+    }
+
+    /**
+     * Deletes cards.
+     * 
+     * @param cards the cards to delete
+     * @return the result
+     */
+    public static Result delete(List<Card> cards) {
+        Map<File, File> targets = new LinkedHashMap<>();
+        for (Card card : cards) {
+            targets.put(card.getFile(), null);
+        }
+        return run(targets, (file, target, result) -> {
+            Files.delete(file.toPath());
+            Model.getCardCache().invalidate(file);
+            result.removed.add(file);
+        }, new Result());
+    }
+
+    /**
+     * Moves cards to a folder, keeping their names.
+     * 
+     * @param cards  the cards to move
+     * @param folder the folder
+     * @return the result
+     */
+    public static Result move(List<Card> cards, File folder) {
+        Result result = new Result();
+        Map<File, File> targets = new LinkedHashMap<>();
+        Set<String> names = new HashSet<>();
+        for (Card card : cards) {
+            File target = new File(folder, card.getFile().getName());
+            if (!names.add(target.getName()) || target.exists()) {
+                result.failures.put(card.getFile(), new IOException("Card already exists: " + target));
+            } else {
+                targets.put(card.getFile(), target);
+            }
+        }
+        return run(targets, BulkOperations::move, result);
+    }
+
+    /**
+     * Renames cards with a pattern.
+     * 
+     * <p>
+     * In the pattern, <code>{name}</code> is the current card name and
+     * <code>{n}</code> is the card number (from 1, in the cards order).
+     * Example: <code>{name} ({n})</code>.
+     * </p>
+     * 
+     * @param cards   the cards to rename
+     * @param pattern the new name pattern
+     * @return the result
+     */
+    public static Result rename(List<Card> cards, String pattern) {
+        Result result = new Result();
+        Map<File, File> targets = new LinkedHashMap<>();
+        Set<String> names = new HashSet<>();
+        int n = 1;
+        for (Card card : cards) {
+            String name = pattern.replace("{name}", card.toString()).replace("{n}", Integer.toString(n++));
+            File target = new File(card.getFile().getParentFile(), name + "." + Card.EXTENSION);
+            if (target.getName().equals(card.getFile().getName())) {
+                continue;
+            }
+            if (name.isBlank() || !names.add(target.getName()) || target.exists()) {
+                result.failures.put(card.getFile(), new IOException("Can't rename to: " + target.getName()));
+            } else {
+                targets.put(card.getFile(), target);
+            }
+        }
+        return run(targets, BulkOperations::move, result);
+    }
+
+    /**
+     * Duplicates cards, next to the originals.
+     * 
+     * <p>
+     * Copies are named <code>name copy</code>, <code>name copy 2</code>
+     * and so on, skipping names already used.
+     * </p>
+     * 
+     * @param cards the cards to duplicate
+     * @return the result
+     */
+    public static Result duplicate(List<Card> cards) {
+        Map<File, File> targets = new LinkedHashMap<>();
+        Set<String> names = new HashSet<>();
+        for (Card card : cards) {
+            File folder = card.getFile().getParentFile();
+            File target;
+            int n = 1;
+            do {
+                String name = card.toString() + " copy" + (n > 1 ? " " + n : "");
+                target = new File(folder, name + "." + Card.EXTENSION);
+                n++;
+            } while (target.exists() || !names.add(target.getPath()));
+            targets.put(card.getFile(), target);
+        }
+        return run(targets, (file, target, result) -> {
+            Files.copy(file.toPath(), target.toPath());
+            result.added.add(new Card(target));
+        }, new Result());
+    }
+
+    /**
+     * Moves a card file (see {@link Model#moveCardFile}).
+     */
+    private static void move(File file, File target, Result result) throws IOException {
+        target = Model.moveCardFile(file, target, false);
+        result.folders.add(file.getAbsoluteFile().getParentFile());
+        result.folders.add(target.getAbsoluteFile().getParentFile());
+        result.removed.add(file);
+        result.added.add(new Card(target));
+    }
+
+    /**
+     * Runs an operation for each card file, in parallel,
+     * then syncs the folders the operation changed.
+     * 
+     * <p>
+     * Cards not processed (the operation was interrupted or failed
+     * unexpectedly) are reported as failures.
+     * </p>
+     * 
+     * @param targets   the target of each card file
+     * @param operation the operation
+     * @param result    the result to fill
+     * @return the result
+     */
+    private static Result run(Map<File, File> targets, Operation operation, Result result) {
+        Set<File> done = ConcurrentHashMap.newKeySet();
+        ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+        try {
+            pool.submit(() -> targets.entrySet().parallelStream().forEach(target -> {
+                try {
+                    operation.run(target.getKey(), target.getValue(), result);
+                } catch (IOException e) {
+                    result.failures.put(target.getKey(), e);
+                } catch (RuntimeException e) {
+                    result.failures.put(target.getKey(), new IOException(e));
+                }
+                done.add(target.getKey());
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            notDone(targets, done, result, e);
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            notDone(targets, done, result, e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        for (File folder : result.folders) {
+            Model.syncDirectory(folder);
+        }
+        return result;
+    }
+
+    /**
+     * Reports the cards not processed as failures.
+     */
+    private static void notDone(Map<File, File> targets, Set<File> done, Result result, Throwable cause) {
+        for (File file : targets.keySet()) {
+            if (!done.contains(file)) {
+                result.failures.putIfAbsent(file, new IOException("Not processed: " + file, cause));
+            }
+        }
+    }
+}
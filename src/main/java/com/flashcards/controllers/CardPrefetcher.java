@@ -0,0 +1,160 @@
+package com.flashcards.controllers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.swing.ListModel;
+
+import com.flashcards.models.Card;
+
+/**
+ * Background reader of the cards around the open card in a list.
+ *
+ * <p>
+ * Keeps the cards up to a radius before and after the open card loaded,
+ * in a ring buffer indexed by list position, so moving to the next or
+ * previous card doesn't read a file. Moving by one loads only the card
+ * entering the window; cards leaving it are released. On a jump, reads
+ * still queued are cancelled and the window is re-centered, nearest
+ * cards first.
+ * </p>
+ *
+ * <p>
+ * Cards are read by a single background thread. Methods are called
+ * from the Event Dispatch Thread.
+ * </p>
+ *
+ * @see {@link com.flashcards.models.Card#release()}
+ */
+public class CardPrefetcher {
+
+    // Ring buffer (by list position modulo its length)
+    private final Card[] cards;
+    private final int[] positions;
+    private final int radius;
+
+    // Queued reads
+    private final List<Future<?>> reads = new ArrayList<>();
+
+    // Reader thread
+    private final ExecutorService reader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "card-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates a prefetcher.
+     *
+     * @param radius the number of cards to keep loaded on each side
+     */
+    public CardPrefetcher(int radius) {
+        this.radius = radius;
+        cards = new Card[2 * radius + 1];
+        positions = new int[cards.length];
+    }
+
+    /**
+     * Moves the window to a list position,
+     * and reads the cards not loaded in background.
+     *
+     * <p>
+     * Cards leaving the window are released, but never the card at the
+     * position: call it once that card is displayed, so the card shown
+     * before (maybe with edits not saved yet) is kept until then.
+     * </p>
+     *
+     * @param list  the list of cards
+     * @param index the position of the open card
+     */
+    public void center(ListModel<Card> list, int index) {
+
+        // Cancel queued reads
+        for (Future<?> read : reads) {
+            read.cancel(false);
+        }
+        reads.clear();
+
+        // Window, nearest first
+        Card current = list.getElementAt(index);
+        for (int d = 0; d <= radius; d++) {
+            prefetch(list, index + d, current);
+            if (d > 0) {
+                prefetch(list, index - d, current);
+            }
+        }
+
+        // Out of the window (list shorter than the ring)
+        for (int slot = 0; slot < cards.length; slot++) {
+            if (cards[slot] != null
+                    && (Math.abs(positions[slot] - index) > radius || positions[slot] >= list.getSize())) {
+                release(cards[slot], current);
+                cards[slot] = null;
+            }
+        }
+    }
+
+    /**
+     * Puts a card of the window in the ring buffer,
+     * and queues its read if not loaded.
+     *
+     * @param list    the list of cards
+     * @param i       the position of the card
+     * @param current the card at the window center (kept loaded)
+     */
+    private void prefetch(ListModel<Card> list, int i, Card current) {
+        if (i < 0 || i >= list.getSize()) {
+            return;
+        }
+        Card card = list.getElementAt(i);
+        int slot = Math.floorMod(i, cards.length);
+        if (cards[slot] != card) {
+            if (cards[slot] != null) {
+                release(cards[slot], current);
+            }
+            cards[slot] = card;
+        }
+        positions[slot] = i;
+        if (!card.isLoaded()) {
+            reads.add(reader.submit(() -> load(card)));
+        }
+    }
+
+    /**
+     * Checks if a card is kept loaded.
+     *
+     * @param card the card
+     * @return <code>true</code> if the card is in the window
+     */
+    public boolean contains(Card card) {
+        for (Card c : cards) {
+            if (c == card) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Releases a card leaving the window, unless it's the current one
+     * (a card can be in the list more than once).
+     */
+    private static void release(Card card, Card current) {
+        if (card != current) {
+            card.release();
+        }
+    }
+
+    /**
+     * Reads a card (reader thread).
+     *
+     * @param card the card
+     */
+    private static void load(Card card) {
+        card.getQuestion();
+        card.getAnswer();
+    }
+}
@@ -0,0 +1,428 @@
+package com.flashcards.controllers;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import com.flashcards.models.Card;
+import com.flashcards.models.CardPack;
+import com.flashcards.models.Model;
+
+/**
+ * Headless command line of <code>Flash Cards App</code>.
+ *
+ * <p>
+ * Processes whole decks without a GUI: no AWT or Swing class is loaded,
+ * so it runs on servers without a display. A deck is a folder of
+ * <code>Card</code> files or a <code>Card pack</code> file. Cards are
+ * read and written one at a time and output is printed as they are
+ * processed, so decks bigger than the heap can be processed.
+ * </p>
+ *
+ * <pre>
+ * list     [deck]            card names
+ * validate [deck]            cards that can't be read, or are empty
+ * stats    [deck]            number and size of cards
+ * convert  source target     copies a deck (folder or .cardpack)
+ * import   source [folder]   adds the cards of a deck (existing are kept),
+ *                            or of a .csv, .tsv or Anki .txt file
+ *                            (--header: skip the first row)
+ * export   target [folder]   copies the cards to a deck,
+ *                            or to a .tar, .csv or .jsonl file
+ * </pre>
+ *
+ * <p>
+ * The default deck is the cards folder. Exit status is <code>0</code>
+ * on success, <code>1</code> if some cards failed and <code>2</code>
+ * on usage or I/O errors.
+ * </p>
+ *
+ * @see {@link com.flashcards.models.Model}
+ * @see {@link com.flashcards.models.CardPack}
+ */
+public class CommandLine {
+
+    // Exit status
+    public static final int OK = 0;
+    public static final int FAILED = 1;
+    public static final int ERROR = 2;
+
+    // Cards written per batch, when copying to a folder
+    private static final int BATCH_SIZE = 256;
+
+    private static final String USAGE = String.join("\n",
+            "Usage: flash-cards [command [arguments]]",
+            "",
+            "Without command, opens the app.",
+            "",
+            "  list     [deck]            card names",
+            "  validate [deck]            cards that can't be read, or are empty",
+            "  stats    [deck]            number and size of cards",
+            "  convert  source target     copies a deck (folder or ." + CardPack.EXTENSION + ")",
+            "  import   source [folder]   adds the cards of a deck (existing are kept),",
+            "                             or of a .csv, .tsv or Anki .txt file",
+            "                             (--header: skip the first row)",
+            "  export   target [folder]   copies the cards to a deck,",
+            "                             or to a .tar, .csv or .jsonl file",
+            "",
+            "Default deck/folder: " + Model.CARDS_FOLDER);
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    // Cards that failed
+    private int failures;
+
+    private CommandLine(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * Runs a command.
+     *
+     * @param args the command and its arguments
+     * @return the exit status
+     */
+    public static int run(String[] args) {
+        PrintStream out = new PrintStream(new BufferedOutputStream(
+                new FileOutputStream(FileDescriptor.out), 1 << 16), false, StandardCharsets.UTF_8);
+        try {
+            return new CommandLine(out, System.err).execute(args);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Runs a command.
+     *
+     * @param args the command and its arguments
+     * @return the exit status
+     */
+    private int execute(String[] args) {
+
+        // Cards are read once: don't cache them
+        Model.getCardCache().setMaxSize(0);
+
+        try {
+            String command = args[0];
+            switch (command) {
+                case "list":
+                    list(deck(args, 1));
+                    break;
+                case "validate":
+                    validate(deck(args, 1));
+                    break;
+                case "stats":
+                    stats(deck(args, 1));
+                    break;
+                case "convert":
+                    copy(file(args, 1), file(args, 2), true);
+                    break;
+                case "import":
+                    importCards(args);
+                    break;
+                case "export":
+                    exportCards(args);
+                    break;
+                case "help":
+                case "-h":
+                case "--help":
+                    out.println(USAGE);
+                    return OK;
+                default:
+                    err.println("Unknown command: " + command);
+                    err.println(USAGE);
+                    return ERROR;
+            }
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return ERROR;
+        } catch (IOException | UncheckedIOException e) {
+            out.flush();
+            err.println("Error: " + e.getMessage());
+            return ERROR;
+        }
+        return failures > 0 ? FAILED : OK;
+    }
+
+    // Commands
+
+    /**
+     * Prints the card names, without reading the cards.
+     */
+    private void list(File deck) throws IOException {
+        if (isPack(deck)) {
+            CardPack pack = CardPack.open(deck);
+            for (int i = 0; i < pack.size(); i++) {
+                out.println(pack.getName(i));
+            }
+        } else {
+            Model.forEachLazyCard(deck, card -> out.println(card));
+        }
+    }
+
+    /**
+     * Prints the cards that can't be read, or have empty question and answer.
+     */
+    private void validate(File deck) throws IOException {
+        int[] count = new int[1];
+        forEachCard(deck, card -> {
+            count[0]++;
+            if (card.getQuestion().isEmpty() && card.getAnswer().isEmpty()) {
+                out.println("empty: " + card.getFile());
+            }
+        });
+        out.println(count[0] + " valid, " + failures + " invalid");
+    }
+
+    /**
+     * Prints the number of cards and their sizes (in characters).
+     */
+    private void stats(File deck) throws IOException {
+        long[] stats = new long[5];
+        forEachCard(deck, card -> {
+            int length = card.getQuestion().length() + card.getAnswer().length();
+            stats[0]++;
+            stats[1] += card.getQuestion().length();
+            stats[2] += card.getAnswer().length();
+            stats[3] = Math.max(stats[3], length);
+            if (length == 0) {
+                stats[4]++;
+            }
+        });
+        long cards = Math.max(1, stats[0]);
+        out.println("cards:            " + stats[0]);
+        out.println("invalid:          " + failures);
+        out.println("empty:            " + stats[4]);
+        out.println("question (avg):   " + stats[1] / cards);
+        out.println("answer (avg):     " + stats[2] / cards);
+        out.println("characters:       " + (stats[1] + stats[2]));
+        out.println("biggest card:     " + stats[3]);
+    }
+
+    /**
+     * Copies the cards of a deck to another deck.
+     *
+     * @param source  the source deck (folder or pack)
+     * @param target  the target deck (folder or pack, created if missing)
+     * @param replace <code>false</code> to keep cards that exist in a
+     * target folder
+     */
+    private void copy(File source, File target, boolean replace) throws IOException {
+        if (!source.exists()) {
+            throw new IOException("Not found: " + source);
+        }
+
+        // To a pack
+        if (isPack(target)) {
+            Cards cards = new Cards(source);
+            try {
+                int count = CardPack.write(target, () -> cards);
+                out.println(count + " cards written to " + target);
+            } finally {
+                cards.close();
+            }
+            return;
+        }
+
+        // To a folder (written in batches, synced once per batch)
+        Model.touchDirectory(target);
+        int[] count = new int[2];
+        Map<File, Card> batch = new LinkedHashMap<>();
+        forEachCard(source, card -> {
+            File file = new File(target, card.getFile().getName());
+            if (!replace && (file.exists() || batch.containsKey(file))) {
+                out.println("skipped (exists): " + file);
+                count[1]++;
+                return;
+            }
+            batch.put(file, new Card(file, card.getQuestion(), card.getAnswer()));
+            if (batch.size() >= BATCH_SIZE) {
+                count[0] += write(batch);
+            }
+        });
+        count[0] += write(batch);
+        out.println(count[0] + " cards written to " + target + (count[1] > 0 ? ", " + count[1] + " skipped" : ""));
+    }
+
+    /**
+     * Writes a batch of cards and clears it.
+     *
+     * @return the number of cards written
+     */
+    private int write(Map<File, Card> batch) {
+        List<File> failures = Model.setCards(batch.values());
+        for (File file : batch.keySet()) {
+            out.println(failures.contains(file) ? "failed: " + file : file);
+        }
+        int written = batch.size() - failures.size();
+        batch.clear();
+        return written;
+    }
+
+    /**
+     * Adds the cards of a deck, or of a CSV, TSV or Anki text file.
+     */
+    private void importCards(String[] args) throws IOException {
+        boolean header = args.length > 1 && args[args.length - 1].equals("--header");
+        if (header) {
+            args = Arrays.copyOf(args, args.length - 1);
+        }
+        File source = file(args, 1);
+        Importer.Format format = Importer.Format.of(source);
+        if (format == null) {
+            copy(source, deck(args, 2), false);
+            return;
+        }
+        if (!source.isFile()) {
+            throw new IOException("Not found: " + source);
+        }
+
+        Importer.Result result = Importer.importFile(source, format, deck(args, 2), header);
+        for (File file : result.getFailures()) {
+            out.println("failed: " + file);
+        }
+        failures += result.getFailures().size();
+        out.println(result);
+    }
+
+    /**
+     * Copies the cards to a deck, or to a tar, CSV or JSON Lines file.
+     */
+    private void exportCards(String[] args) throws IOException {
+        File target = file(args, 1);
+        Exporter.Format format = Exporter.Format.of(target);
+        if (format == null) {
+            copy(deck(args, 2), target, true);
+            return;
+        }
+
+        Exporter.Result result = Exporter.exportDeck(deck(args, 2), target, format);
+        for (File file : result.getFailures()) {
+            out.println("invalid: " + file);
+        }
+        failures += result.getFailures().size();
+        out.println(result + " to " + target);
+    }
+
+    // Decks
+
+    /**
+     * Reads the cards of a deck one by one.
+     * Cards that can't be read are reported and counted as failures.
+     *
+     * @param deck   the deck (folder or pack)
+     * @param action the action for each card
+     */
+    private void forEachCard(File deck, Consumer<Card> action) throws IOException {
+        Cards cards = new Cards(deck);
+        try {
+            while (cards.hasNext()) {
+                action.accept(cards.next());
+            }
+        } finally {
+            cards.close();
+        }
+    }
+
+    /**
+     * Cards of a deck, read while iterating.
+     */
+    private class Cards implements Iterator<Card> {
+
+        // Pack deck
+        private CardPack pack;
+        private int index;
+
+        // Folder deck
+        private DirectoryStream<Path> stream;
+        private Iterator<Path> paths;
+
+        private Card next;
+
+        Cards(File deck) throws IOException {
+            if (isPack(deck)) {
+                pack = CardPack.open(deck);
+            } else if (deck.isDirectory()) {
+                stream = Files.newDirectoryStream(deck.toPath());
+                paths = stream.iterator();
+            } else {
+                throw new IOException("Not a folder or card pack: " + deck);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (pack != null) {
+                    if (index == pack.size()) {
+                        return false;
+                    }
+                    next = pack.getCard(index++);
+                } else {
+                    if (!paths.hasNext()) {
+                        return false;
+                    }
+                    File file = paths.next().toFile();
+                    if (Model.isCardFile(file)) {
+                        next = Model.getCard(file);
+                        if (next == null) {
+                            out.println("invalid: " + file);
+                            failures++;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Card next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Card card = next;
+            next = null;
+            return card;
+        }
+
+        void close() throws IOException {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
+    private static boolean isPack(File file) {
+        return CardPack.EXTENSION.equals(Model.getFileExtension(file));
+    }
+
+    private static File file(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing argument");
+        }
+        return new File(args[i]);
+    }
+
+    private static File deck(String[] args, int i) {
+        return i < args.length ? new File(args[i]) : new File(Model.CARDS_FOLDER);
+    }
+}
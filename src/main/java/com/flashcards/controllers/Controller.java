@@ -5,6 +5,7 @@ import java.io.File;
 
 import javax.swing.JFileChooser;
 import javax.swing.filechooser.FileFilter;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 import com.flashcards.models.Card;
 import com.flashcards.models.Model;
@@ -67,6 +68,49 @@ public class Controller {
         return null;
     }
 
+    /**
+     * Opens file chooser to select a CSV, TSV or Anki text file to import.
+     * 
+     * @param component the parent component to show the file chooser dialog.
+     * Can be <code>null</code>
+     * @return the selected file, or <code>null</code> if none
+     * @see {@link Importer}
+     */
+    public static File chooseImportFile(Component component) {
+
+        // File chooser
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Cards export (*.csv, *.tsv, *.txt)", "csv", "tsv", "txt"));
+        if (fileChooser.showOpenDialog(component) == JFileChooser.APPROVE_OPTION) {
+            return fileChooser.getSelectedFile();
+        }
+        return null;
+    }
+
+    /**
+     * Opens file chooser to select a tar, CSV or JSON Lines file to export
+     * cards to (<code>tar</code> extension added if missing).
+     * 
+     * @param component the parent component to show the file chooser dialog.
+     * Can be <code>null</code>
+     * @return the selected file, or <code>null</code> if none
+     * @see {@link Exporter}
+     */
+    public static File chooseExportFile(Component component) {
+
+        // File chooser
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Cards export (*.tar, *.csv, *.jsonl)", "tar", "csv", "jsonl"));
+        if (fileChooser.showSaveDialog(component) == JFileChooser.APPROVE_OPTION) {
+            File file = fileChooser.getSelectedFile();
+            if (Exporter.Format.of(file) == null) {
+                file = new File(file.getParentFile(), file.getName() + ".tar");
+            }
+            return file;
+        }
+        return null;
+    }
+
     /**
      * Opens file chooser to select a local
      * and a name to save the <code>Card</code>.
@@ -74,9 +118,10 @@ public class Controller {
      * @param card the card to save
      * @param component the parent component to show the file chooser dialog.
      * Can be <code>null</code>
+     * @return the saved card file, or <code>null</code> if not saved
      * @see {@link com.flashcards.models.Card}
      */
-    public static void saveCard(Card card, Component component) {
+    public static File saveCard(Card card, Component component) {
 
         // File chooser
         JFileChooser fileChooser = new JFileChooser(Model.touchDirectory(Model.CARDS_FOLDER));
@@ -98,7 +143,9 @@ public class Controller {
 
             // Save card
             Model.setCard(card, card.getFile());
+            return card.getFile();
         }
+        return null;
     }
 
     /**
@@ -108,20 +155,21 @@ public class Controller {
      */
     public static void deleteCard(Card card) {
         card.getFile().delete();
+        Model.getCardCache().invalidate(card.getFile());
     }
     
     /**
      * Renames a card
      * 
+     * <p>
+     * The card file is moved, not rewritten.
+     * </p>
+     * 
      * @param card the card to rename
      * @param name the new name
+     * @return the new card file, or <code>null</code> if not renamed
      */
-    public static void renameCard(Card card, String name) {
-
-        // Save new card
-        Model.setCard(card, new File(card.getFile().getParentFile(), name));
-
-        // Delete old card
-        deleteCard(card);
+    public static File renameCard(Card card, String name) {
+        return Model.moveCard(card.getFile(), new File(card.getFile().getParentFile(), name));
     }
 }
@@ -0,0 +1,143 @@
+package com.flashcards.controllers;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Bus of app events, delivered to listeners in the Event Dispatch Thread.
+ *
+ * <p>
+ * Events can be published from any thread. Events published within a
+ * frame (see {@link #DELAY}) are coalesced: each listener is called once
+ * per topic, with the distinct values published, in order of their last
+ * publication. So a burst of changes causes one refresh.
+ * </p>
+ *
+ * @see {@link Topic}
+ */
+public class EventBus {
+
+    // Coalescing delay (about a frame), in milliseconds
+    public static final int DELAY = 16;
+
+    /**
+     * Kind of event, with the type of its values.
+     *
+     * @param <T> the type of event values
+     */
+    public static final class Topic<T> {
+
+        private final String name;
+
+        /**
+         * Creates a topic.
+         *
+         * @param name the topic name
+         */
+        public Topic(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * A cards folder must be reloaded (value: the folder).
+     */
+    public static final Topic<File> DECK_CHANGED = new Topic<>("deck changed");
+
+    /**
+     * A card file was added, changed or deleted (value: the card file).
+     */
+    public static final Topic<File> CARD_CHANGED = new Topic<>("card changed");
+
+    // Listeners (by topic)
+    private final Map<Topic<?>, List<Consumer<List<?>>>> listeners = new LinkedHashMap<>();
+
+    // Values waiting for delivery (by topic)
+    private final Map<Topic<?>, Set<Object>> pending = new LinkedHashMap<>();
+
+    // Delivery timer (started by the first event of a burst)
+    private final Timer timer = new Timer(DELAY, e -> deliver());
+
+    /**
+     * Creates an event bus.
+     */
+    public EventBus() {
+        timer.setRepeats(false);
+    }
+
+    /**
+     * Adds a listener of a topic.
+     *
+     * @param <T>      the type of event values
+     * @param topic    the topic
+     * @param listener the listener, called in the Event Dispatch Thread
+     * with the distinct values published since the last call
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void subscribe(Topic<T> topic, Consumer<List<T>> listener) {
+        synchronized (listeners) {
+            listeners.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>())
+                    .add(values -> listener.accept((List<T>) values));
+        }
+    }
+
+    /**
+     * Publishes an event, to be delivered with the others of the same frame.
+     *
+     * @param <T>   the type of event values
+     * @param topic the topic
+     * @param value the value
+     */
+    public <T> void publish(Topic<T> topic, T value) {
+        synchronized (pending) {
+            boolean idle = pending.isEmpty();
+            Set<Object> values = pending.computeIfAbsent(topic, t -> new LinkedHashSet<>());
+            values.remove(value);
+            values.add(value);
+            if (idle) {
+                SwingUtilities.invokeLater(timer::restart);
+            }
+        }
+    }
+
+    /**
+     * Delivers the pending events (Event Dispatch Thread).
+     */
+    private void deliver() {
+        Map<Topic<?>, Set<Object>> events;
+        synchronized (pending) {
+            events = new LinkedHashMap<>(pending);
+            pending.clear();
+        }
+
+        for (Map.Entry<Topic<?>, Set<Object>> event : events.entrySet()) {
+            List<Consumer<List<?>>> topicListeners;
+            synchronized (listeners) {
+                topicListeners = listeners.get(event.getKey());
+            }
+            if (topicListeners == null) {
+                continue;
+            }
+            List<Object> values = Collections.unmodifiableList(new ArrayList<>(event.getValue()));
+            for (Consumer<List<?>> listener : topicListeners) {
+                listener.accept(values);
+            }
+        }
+    }
+}
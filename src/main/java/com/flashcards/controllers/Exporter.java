@@ -0,0 +1,399 @@
+package com.flashcards.controllers;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.flashcards.models.Card;
+import com.flashcards.models.Model;
+
+/**
+ * Streaming exporter of a cards folder to a single file.
+ *
+ * <p>
+ * Formats, by extension of the target file:
+ * <ul>
+ *     <li><strong>tar</strong>: the <code>Card</code> files as they are,
+ *     in a POSIX tar archive
+ *     <li><strong>csv</strong>: a row of question, answer and name per card
+ *     (RFC 4180, with a header row)
+ *     <li><strong>jsonl</strong>: a JSON object of name, question and
+ *     answer per line (JSON Lines)
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Card files are exported one at a time, in folder order, so memory
+ * stays constant whatever the deck size. In a tar archive, card files
+ * are copied with {@link FileChannel#transferTo}: the operating system
+ * copies the bytes, which never pass through the Java heap.
+ * </p>
+ *
+ * <p>
+ * The target is written to a temporary file, synced to disk and then
+ * moved over the target, so a failed export never leaves a partial file.
+ * </p>
+ *
+ * @see {@link Importer}
+ */
+public class Exporter {
+
+    // Tar block size, and end of archive (two zero blocks)
+    private static final int BLOCK = 512;
+    private static final int END_SIZE = BLOCK * 2;
+
+    // Max bytes of a name in a tar header (longer names use a PAX header)
+    private static final int MAX_TAR_NAME = 100;
+
+    /**
+     * Target file format.
+     */
+    public enum Format {
+
+        TAR, CSV, JSONL;
+
+        /**
+         * Gets the format of a file, by extension
+         * (<code>tar</code>, <code>csv</code> or <code>jsonl</code>).
+         *
+         * @param file the file
+         * @return the format, or <code>null</code> if not supported
+         */
+        public static Format of(File file) {
+            String extension = Model.getFileExtension(file);
+            if (extension == null) {
+                return null;
+            }
+            switch (extension.toLowerCase(Locale.ROOT)) {
+                case "tar": return TAR;
+                case "csv": return CSV;
+                case "jsonl": return JSONL;
+                default: return null;
+            }
+        }
+    }
+
+    /**
+     * Result of an export.
+     */
+    public static class Result {
+
+        private long cards;
+        private long bytes;
+        private long nanos;
+        private final List<File> failures = new ArrayList<>();
+
+        /**
+         * Gets the number of cards exported.
+         *
+         * @return the number of cards
+         */
+        public long getCards() {
+            return cards;
+        }
+
+        /**
+         * Gets the card files that couldn't be read.
+         *
+         * @return the failed files
+         */
+        public List<File> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Gets the export throughput.
+         *
+         * @return the cards exported per second
+         */
+        public double getCardsPerSecond() {
+            return nanos > 0 ? cards * 1e9 / nanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            return String.format(Locale.ROOT, "%d cards exported in %.2f s (%.0f cards/s, %.1f MB/s)%s",
+                    cards, seconds, getCardsPerSecond(), seconds > 0 ? bytes / 1e6 / seconds : 0,
+                    failures.isEmpty() ? "" : ", " + failures.size() + " failed");
+        }
+    }
+
+    private Exporter() {}
+
+    /**
+     * Exports the cards of a folder to a file.
+     *
+     * @param folder the cards folder
+     * @param target the target file (replaced if it exists)
+     * @param format the target format
+     * @return the result
+     * @throws IOException if the folder can't be read or the target written
+     */
+    public static Result exportDeck(File folder, File target, Format format) throws IOException {
+        if (!folder.isDirectory()) {
+            throw new IOException("Not a folder: " + folder);
+        }
+        Result result = new Result();
+        long start = System.nanoTime();
+        File temp = Model.createTempFile(target);
+
+        try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+            if (format == Format.TAR) {
+                writeTar(folder, out, result);
+            } else {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(
+                        Channels.newOutputStream(out), StandardCharsets.UTF_8), 1 << 16);
+                if (format == Format.CSV) {
+                    writeCsv(folder, writer, result);
+                } else {
+                    writeJsonLines(folder, writer, result);
+                }
+                writer.flush();
+            }
+            result.bytes = out.size();
+            out.force(true);
+        } catch (IOException | UncheckedIOException e) {
+            temp.delete();
+            throw e instanceof UncheckedIOException ? ((UncheckedIOException) e).getCause() : (IOException) e;
+        }
+        try {
+            Files.move(temp.toPath(), target.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    // Tar
+
+    /**
+     * Writes the card files in a tar archive, each after its header.
+     */
+    private static void writeTar(File folder, FileChannel out, Result result) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BLOCK);
+        Model.forEachLazyCard(folder, card -> {
+            File file = card.getFile();
+            FileChannel in;
+            try {
+                in = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            } catch (IOException e) {
+                e.printStackTrace();
+                result.failures.add(file);
+                return;
+            }
+
+            // Once its header is written, a card that can't be copied fails the export
+            try (in) {
+                long size = in.size();
+                long time = file.lastModified() / 1000;
+                byte[] name = file.getName().getBytes(StandardCharsets.UTF_8);
+
+                // Long name: PAX header before the file header
+                if (name.length > MAX_TAR_NAME) {
+                    byte[] pax = paxRecord("path", file.getName());
+                    write(out, tarHeader(header, "PaxHeader".getBytes(StandardCharsets.US_ASCII), pax.length, time, 'x'));
+                    write(out, ByteBuffer.wrap(pax));
+                    write(out, ByteBuffer.allocate(padding(pax.length)));
+                }
+                write(out, tarHeader(header, name, size, time, '0'));
+
+                // Content, copied by the operating system
+                for (long position = 0; position < size;) {
+                    long copied = in.transferTo(position, size - position, out);
+                    if (copied <= 0) {
+                        throw new IOException("Card changed while exporting: " + file);
+                    }
+                    position += copied;
+                }
+                write(out, ByteBuffer.allocate(padding(size)));
+                result.cards++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        write(out, ByteBuffer.allocate(END_SIZE));
+    }
+
+    /**
+     * Fills a ustar header (names are cut to 100 bytes).
+     */
+    private static ByteBuffer tarHeader(ByteBuffer header, byte[] name, long size, long time, char type) {
+        byte[] block = header.array();
+        Arrays.fill(block, (byte) 0);
+        System.arraycopy(name, 0, block, 0, Math.min(name.length, MAX_TAR_NAME));
+        octal(block, 100, 8, 0644);
+        octal(block, 108, 8, 0);
+        octal(block, 116, 8, 0);
+        octal(block, 124, 12, size);
+        octal(block, 136, 12, time);
+        block[156] = (byte) type;
+        ascii(block, 257, "ustar\0" + "00");
+
+        // Checksum (of the header with spaces as checksum)
+        Arrays.fill(block, 148, 156, (byte) ' ');
+        int checksum = 0;
+        for (byte b : block) {
+            checksum += b & 0xFF;
+        }
+        octal(block, 148, 7, checksum);
+        header.clear();
+        return header;
+    }
+
+    /**
+     * Gets a PAX record (<code>"length key=value\n"</code>, length included).
+     */
+    private static byte[] paxRecord(String key, String value) {
+        int length = (" " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8).length;
+        int digits = String.valueOf(length).length();
+        if (String.valueOf(length + digits).length() > digits) {
+            digits++;
+        }
+        return ((length + digits) + " " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes an octal number, zero padded and ended by a NUL.
+     */
+    private static void octal(byte[] block, int offset, int length, long value) {
+        String digits = Long.toOctalString(value);
+        ascii(block, offset, "0".repeat(Math.max(0, length - 1 - digits.length())) + digits);
+        block[offset + length - 1] = 0;
+    }
+
+    private static void ascii(byte[] block, int offset, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            block[offset + i] = (byte) text.charAt(i);
+        }
+    }
+
+    private static int padding(long size) {
+        return (int) ((BLOCK - size % BLOCK) % BLOCK);
+    }
+
+    private static void write(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    // Text
+
+    /**
+     * Writes a CSV row per card (question, answer and name).
+     */
+    private static void writeCsv(File folder, Writer writer, Result result) throws IOException {
+        writer.write("question,answer,name\r\n");
+        forEachCard(folder, result, card -> {
+            csvField(writer, card.getQuestion());
+            writer.write(',');
+            csvField(writer, card.getAnswer());
+            writer.write(',');
+            csvField(writer, Model.getFileName(card.getFile()));
+            writer.write("\r\n");
+        });
+    }
+
+    private static void csvField(Writer writer, String text) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    /**
+     * Writes a JSON object per card, one per line.
+     */
+    private static void writeJsonLines(File folder, Writer writer, Result result) throws IOException {
+        forEachCard(folder, result, card -> {
+            writer.write("{\"name\":");
+            jsonString(writer, Model.getFileName(card.getFile()));
+            writer.write(",\"question\":");
+            jsonString(writer, card.getQuestion());
+            writer.write(",\"answer\":");
+            jsonString(writer, card.getAnswer());
+            writer.write("}\n");
+        });
+    }
+
+    private static void jsonString(Writer writer, String text) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': writer.write("\\\""); break;
+                case '\\': writer.write("\\\\"); break;
+                case '\n': writer.write("\\n"); break;
+                case '\r': writer.write("\\r"); break;
+                case '\t': writer.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    /**
+     * Action on a card that can fail writing.
+     */
+    private interface CardWriter {
+        void write(Card card) throws IOException;
+    }
+
+    /**
+     * Reads the cards of a folder one by one, without the card cache
+     * (so exporting doesn't evict the cards in use).
+     * Cards that can't be read are counted as failures.
+     */
+    private static void forEachCard(File folder, Result result, CardWriter action) throws IOException {
+        Model.forEachLazyCard(folder, lazy -> {
+            Card card = Model.readCard(lazy.getFile());
+            if (card == null) {
+                result.failures.add(lazy.getFile());
+                return;
+            }
+            try {
+                action.write(card);
+                result.cards++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,625 @@
+package com.flashcards.controllers;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import com.flashcards.models.Card;
+import com.flashcards.models.Model;
+
+/**
+ * Streaming importer of cards from CSV, TSV and Anki text exports.
+ *
+ * <p>
+ * Each row is a card: first column is the question, second is the
+ * answer (other columns are ignored). Quoted fields can have separators,
+ * line breaks and doubled quotes. Anki exports (<code>.txt</code>) can
+ * start with <code>#key:value</code> header lines: the separator
+ * (<code>#separator:tab</code>), extra columns to skip
+ * (<code>#guid column:1</code>, <code>#notetype column:2</code>,
+ * <code>#deck column:3</code>, <code>#tags column:4</code>) and HTML
+ * (<code>#html:true</code>, the default): line breaks and blocks become
+ * new lines, other tags are removed and character entities are decoded.
+ * </p>
+ *
+ * <p>
+ * Rows are read one at a time and cards are written in batches by a
+ * pool of writers. The queue of batches is bounded: when writers fall
+ * behind, the reading thread writes a batch itself, so memory stays
+ * bounded whatever the file size.
+ * </p>
+ *
+ * <p>
+ * Card names come from the question, or the answer if there's no
+ * question (first line, up to 40 characters, without characters not
+ * allowed in file names). Repeated names get a
+ * number (<code>name 2</code>, <code>name 3</code>...), in row order,
+ * skipping names of existing cards, so the same file imported in the
+ * same folder always gives the same names.
+ * </p>
+ *
+ * @see {@link Model#setCards}
+ */
+public class Importer {
+
+    // Max writers at the same time
+    private static final int PARALLELISM = Integer.getInteger("flashcards.importParallelism",
+            Runtime.getRuntime().availableProcessors());
+
+    // Cards written per batch, and batches waiting per writer
+    private static final int BATCH_SIZE = 256;
+    private static final int QUEUE_SIZE = 2;
+
+    // Max characters of a row (a longer one is an unclosed quote)
+    private static final int MAX_ROW_LENGTH = 1 << 20;
+
+    // Max characters of a card name
+    private static final int MAX_NAME_LENGTH = 40;
+
+    // HTML line breaks: break and block start tags (Anki)
+    private static final Pattern LINE_BREAK = Pattern.compile(
+            "(?i)<br\\s*/?>|<(div|p|li|tr|h[1-6]|blockquote|pre)(\\s[^>]*)?>");
+
+    // Other HTML tags and comments (removed)
+    private static final Pattern TAG = Pattern.compile("<!--.*?-->|</?[a-zA-Z][^>]*>", Pattern.DOTALL);
+
+    /**
+     * Source file format.
+     */
+    public enum Format {
+
+        CSV(','), TSV('\t'), ANKI('\t');
+
+        final char separator;
+
+        Format(char separator) {
+            this.separator = separator;
+        }
+
+        /**
+         * Gets the format of a file, by extension
+         * (<code>csv</code>, <code>tsv</code> or <code>txt</code> for Anki).
+         *
+         * @param file the file
+         * @return the format, or <code>null</code> if not supported
+         */
+        public static Format of(File file) {
+            String extension = Model.getFileExtension(file);
+            if (extension == null) {
+                return null;
+            }
+            switch (extension.toLowerCase(Locale.ROOT)) {
+                case "csv": return CSV;
+                case "tsv": return TSV;
+                case "txt": return ANKI;
+                default: return null;
+            }
+        }
+    }
+
+    /**
+     * Result of an import.
+     */
+    public static class Result {
+
+        private long rows;
+        private long skipped;
+        private long bytes;
+        private long nanos;
+        private final List<File> failures = Collections.synchronizedList(new ArrayList<>());
+
+        /**
+         * Gets the number of cards written.
+         *
+         * @return the number of cards
+         */
+        public long getCards() {
+            return rows - skipped - failures.size();
+        }
+
+        /**
+         * Gets the number of empty rows skipped.
+         *
+         * @return the number of rows
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Gets the card files that couldn't be written.
+         *
+         * @return the failed files
+         */
+        public List<File> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Gets the import throughput.
+         *
+         * @return the cards written per second
+         */
+        public double getCardsPerSecond() {
+            return nanos > 0 ? getCards() * 1e9 / nanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            return String.format(Locale.ROOT, "%d cards imported in %.2f s (%.0f cards/s, %.1f MB/s)%s%s",
+                    getCards(), seconds, getCardsPerSecond(), seconds > 0 ? bytes / 1e6 / seconds : 0,
+                    skipped > 0 ? ", " + skipped + " empty rows skipped" : "",
+                    failures.isEmpty() ? "" : ", " + failures.size() + " failed");
+        }
+    }
+
+    private Importer() {}
+
+    /**
+     * Imports cards from a file.
+     *
+     * @param source the CSV, TSV or Anki text file (UTF-8, with or without BOM)
+     * @param format the file format
+     * @param folder the folder to write cards (created if missing)
+     * @param header <code>true</code> to skip the first row (column names)
+     * @return the result
+     * @throws IOException if the file can't be read or is malformed
+     */
+    public static Result importFile(File source, Format format, File folder, boolean header) throws IOException {
+        Result result = new Result();
+        result.bytes = source.length();
+        long start = System.nanoTime();
+        Model.touchDirectory(folder);
+
+        ThreadPoolExecutor writers = new ThreadPoolExecutor(PARALLELISM, PARALLELISM, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(PARALLELISM * QUEUE_SIZE), new ThreadPoolExecutor.CallerRunsPolicy());
+        try (Reader reader = new InputStreamReader(new FileInputStream(source), StandardCharsets.UTF_8)) {
+            Rows rows = new Rows(new BufferedReader(reader, 1 << 16), format);
+            Names names = new Names(folder);
+            List<Card> batch = new ArrayList<>(BATCH_SIZE);
+            if (header) {
+                rows.next();
+            }
+
+            List<String> row;
+            while ((row = rows.next()) != null) {
+                result.rows++;
+                String question = row.size() > 0 ? row.get(0) : "";
+                String answer = row.size() > 1 ? row.get(1) : "";
+                if (question.isBlank() && answer.isBlank()) {
+                    result.skipped++;
+                    continue;
+                }
+
+                batch.add(new Card(names.next(question.isBlank() ? answer : question), question, answer));
+                if (batch.size() == BATCH_SIZE) {
+                    write(writers, batch, result);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            write(writers, batch, result);
+        } finally {
+            writers.shutdown();
+            try {
+                writers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            result.nanos = System.nanoTime() - start;
+        }
+        return result;
+    }
+
+    /**
+     * Queues a batch of cards to be written
+     * (or writes it, if the queue is full).
+     */
+    private static void write(ThreadPoolExecutor writers, List<Card> batch, Result result) {
+        if (!batch.isEmpty()) {
+            writers.execute(() -> result.failures.addAll(Model.setCards(batch)));
+        }
+    }
+
+    /**
+     * Reader of delimited rows (RFC 4180, with any separator).
+     */
+    private static final class Rows {
+
+        private final BufferedReader reader;
+        private char separator;
+        private final boolean anki;
+
+        // Anki columns to skip (GUID, note type, deck, tags), and HTML fields
+        private final BitSet skipped = new BitSet();
+        private boolean html;
+        private int column;
+
+        private final List<String> row = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+        private int next = -2; // read ahead (-2: none)
+        private long line = 1;
+
+        Rows(BufferedReader reader, Format format) throws IOException {
+            this.reader = reader;
+            separator = format.separator;
+
+            // Byte order mark (Excel)
+            reader.mark(1);
+            if (reader.read() != '\uFEFF') {
+                reader.reset();
+            }
+
+            anki = format == Format.ANKI;
+            html = anki;
+            if (anki) {
+                readAnkiHeader();
+            }
+        }
+
+        /**
+         * Reads the next row.
+         *
+         * @return the fields (reused by the next call),
+         * or <code>null</code> at the end
+         * @throws IOException if an I/O error occurs or the row is malformed
+         */
+        List<String> next() throws IOException {
+            row.clear();
+            field.setLength(0);
+            column = 0;
+            int length = 0;
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IOException("Unclosed quote at line " + line);
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            continue;
+                        }
+                    } else if (c == '\r') {
+                        field.append('\n');
+                        if ((c = read()) != '\n') {
+                            continue;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == separator) {
+                    endField();
+                    wasQuoted = false;
+                } else if (c == '\n' || c == '\r' || c == -1) {
+                    if (c == '\r' && (c = read()) != '\n') {
+                        unread(c);
+                    }
+                    endField();
+                    return row;
+                } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                    quoted = true;
+                    wasQuoted = true;
+                } else {
+                    field.append((char) c);
+                }
+
+                if (++length > MAX_ROW_LENGTH) {
+                    throw new IOException("Row too long at line " + line);
+                }
+                c = read();
+            }
+        }
+
+        private void endField() {
+            if (!skipped.get(column++)) {
+                String text = field.toString();
+                if (html) {
+                    if (text.indexOf('<') >= 0) {
+                        text = LINE_BREAK.matcher(text).replaceAll("\n");
+                        text = TAG.matcher(text).replaceAll("");
+                        text = trimLines(text);
+                    }
+                    if (text.indexOf('&') >= 0) {
+                        text = decodeEntities(text);
+                    }
+                }
+                row.add(text);
+            }
+            field.setLength(0);
+        }
+
+        /**
+         * Removes the line breaks at the start and end of a text
+         * (left by block tags around the whole field).
+         */
+        private static String trimLines(String text) {
+            int start = 0;
+            int end = text.length();
+            while (start < end && text.charAt(start) == '\n') {
+                start++;
+            }
+            while (end > start && text.charAt(end - 1) == '\n') {
+                end--;
+            }
+            return text.substring(start, end);
+        }
+
+        /**
+         * Reads Anki header lines (<code>#key:value</code>), applying the separator.
+         */
+        private void readAnkiHeader() throws IOException {
+            while (true) {
+                reader.mark(1 << 16);
+                String header = reader.readLine();
+                if (header == null || !header.startsWith("#") || header.indexOf(':') < 0) {
+                    reader.reset();
+                    return;
+                }
+                line++;
+                String key = header.substring(1, header.indexOf(':')).trim().toLowerCase(Locale.ROOT);
+                String value = header.substring(header.indexOf(':') + 1).trim().toLowerCase(Locale.ROOT);
+                if (key.endsWith(" column")) {
+                    try {
+                        int number = Integer.parseInt(value);
+                        if (number > 0) {
+                            skipped.set(number - 1);
+                        }
+                    } catch (NumberFormatException e) {
+                        // Not a column number
+                    }
+                } else if (key.equals("html")) {
+                    html = value.equals("true");
+                } else if (key.equals("separator")) {
+                    switch (value) {
+                        case "tab": separator = '\t'; break;
+                        case "comma": separator = ','; break;
+                        case "semicolon": separator = ';'; break;
+                        case "pipe": separator = '|'; break;
+                        case "space": separator = ' '; break;
+                        default:
+                            if (value.length() == 1) {
+                                separator = value.charAt(0);
+                            }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Decodes HTML character entities (named, decimal and hex).
+         * Unknown entities are kept as they are.
+         */
+        private static String decodeEntities(String text) {
+            StringBuilder decoded = new StringBuilder(text.length());
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                int end = c == '&' ? text.indexOf(';', i) : -1;
+                String entity = end > i + 1 && end - i <= 10 ? text.substring(i + 1, end) : null;
+                int code = entity != null ? entity(entity) : -1;
+                if (code >= 0) {
+                    decoded.appendCodePoint(code);
+                    i = end + 1;
+                } else {
+                    decoded.append(c);
+                    i++;
+                }
+            }
+            return decoded.toString();
+        }
+
+        /**
+         * Gets the character of an entity name (without <code>&amp;</code>
+         * and <code>;</code>), or <code>-1</code> if unknown.
+         */
+        private static int entity(String name) {
+            switch (name) {
+                case "amp": return '&';
+                case "lt": return '<';
+                case "gt": return '>';
+                case "quot": return '"';
+                case "apos": return '\'';
+                case "nbsp": return ' ';
+                default:
+                    if (name.startsWith("#")) {
+                        try {
+                            int code = name.startsWith("#x") || name.startsWith("#X")
+                                    ? Integer.parseInt(name.substring(2), 16)
+                                    : Integer.parseInt(name.substring(1));
+                            return Character.isValidCodePoint(code) ? code : -1;
+                        } catch (NumberFormatException e) {
+                            return -1;
+                        }
+                    }
+                    return -1;
+            }
+        }
+
+        private int read() throws IOException {
+            int c;
+            if (next != -2) {
+                c = next;
+                next = -2;
+            } else {
+                c = reader.read();
+            }
+            if (c == '\n') {
+                line++;
+            }
+            return c;
+        }
+
+        private void unread(int c) {
+            if (c == '\n') {
+                line--;
+            }
+            next = c;
+        }
+    }
+
+    /**
+     * Deterministic card names, in row order.
+     *
+     * <p>
+     * Names given are remembered by a 64-bit hash (in primitive hash
+     * tables), so a million names take a few megabytes. A hash collision
+     * only makes a name get a number it didn't need.
+     * </p>
+     */
+    private static final class Names {
+
+        private final File folder;
+
+        // Names given (by hash), and the next number of each base name
+        private final LongIntMap given = new LongIntMap();
+        private final LongIntMap numbers = new LongIntMap();
+
+        Names(File folder) {
+            this.folder = folder;
+        }
+
+        /**
+         * Gets a free card file for a card text.
+         *
+         * @param text the card question (or answer, if no question)
+         * @return the card file
+         */
+        File next(String text) {
+            String base = base(text);
+            long baseHash = hash(base);
+            int n = Math.max(1, numbers.get(baseHash));
+            while (true) {
+                String name = n == 1 ? base : base + " " + n;
+                n++;
+                long hash = hash(name);
+                File file = new File(folder, name + "." + Card.EXTENSION);
+                if (given.get(hash) == 0 && !file.exists()) {
+                    given.put(hash, 1);
+                    numbers.put(baseHash, n);
+                    return file;
+                }
+            }
+        }
+
+        /**
+         * Gets the base name of a question.
+         */
+        private static String base(String question) {
+            StringBuilder name = new StringBuilder(MAX_NAME_LENGTH);
+            boolean space = false;
+            for (int i = 0; i < question.length() && name.length() < MAX_NAME_LENGTH; i++) {
+                char c = question.charAt(i);
+                if (c == '\n') {
+                    break;
+                }
+                if (Character.isWhitespace(c) || Character.isISOControl(c) || "\\/:*?\"<>|".indexOf(c) >= 0) {
+                    space = name.length() > 0;
+                    continue;
+                }
+                if (space) {
+                    name.append(' ');
+                    space = false;
+                }
+                name.append(c);
+            }
+            while (name.length() > 0 && name.charAt(name.length() - 1) == '.') {
+                name.setLength(name.length() - 1);
+            }
+            return name.length() > 0 ? name.toString() : "card";
+        }
+
+        /**
+         * Gets a 64-bit hash of a name, ignoring case (FNV-1a).
+         */
+        private static long hash(String name) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < name.length(); i++) {
+                hash ^= Character.toLowerCase(name.charAt(i));
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * Open addressing hash table of long keys to positive int values.
+     */
+    private static final class LongIntMap {
+
+        private long[] keys = new long[1024];
+        private int[] values = new int[1024];
+        private int size;
+
+        /**
+         * Gets a value.
+         *
+         * @return the value, or <code>0</code> if not found
+         */
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); values[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return 0;
+        }
+
+        void put(long key, int value) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (values[i] != 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] == 0) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+            if (size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            key *= 0x9E3779B97F4A7C15L;
+            return (int) (key ^ (key >>> 32)) & mask;
+        }
+    }
+}
@@ -9,6 +9,12 @@ import java.io.File;
  * Used to save question and answer.
  * </p>
  * 
+ * <p>
+ * A lazy card (see {@link #Card(File)}) only holds its file: question and
+ * answer are read on first access, and can be dropped again with
+ * {@link #release()}.
+ * </p>
+ * 
  * @see {@link com.flashcards.App}
  */
 public class Card {
@@ -17,6 +23,7 @@ public class Card {
 
     private File file;
 
+    // null while not loaded (lazy cards)
     private String question;
     private String answer;
 
@@ -42,12 +49,25 @@ public class Card {
         setAnswer(answer);
     }
 
+    /**
+     * Creates a lazy card, which reads question and answer
+     * from the file on first access.
+     * 
+     * @param file the file
+     */
+    public Card(File file) {
+        this.file = file;
+    }
+
     /**
      * Gets card question text
      * 
      * @return the question text
      */
-    public String getQuestion() {
+    public synchronized String getQuestion() {
+        if (question == null) {
+            load();
+        }
         return question;
     }
 
@@ -56,7 +76,7 @@ public class Card {
      * 
      * @param question the question text to set
      */
-    public void setQuestion(String question) {
+    public synchronized void setQuestion(String question) {
         this.question = question;
     }
 
@@ -65,7 +85,10 @@ public class Card {
      * 
      * @return the answer text
      */
-    public String getAnswer() {
+    public synchronized String getAnswer() {
+        if (answer == null) {
+            load();
+        }
         return answer;
     }
 
@@ -74,10 +97,48 @@ public class Card {
      * 
      * @param answer the answer text to set
      */
-    public void setAnswer(String answer) {
+    public synchronized void setAnswer(String answer) {
         this.answer = answer;
     }
 
+    /**
+     * Checks if question and answer are in memory.
+     * 
+     * @return <code>true</code> if loaded
+     */
+    public synchronized boolean isLoaded() {
+        return question != null && answer != null;
+    }
+
+    /**
+     * Drops question and answer from memory.
+     * They are read again from the file on next access.
+     * 
+     * <p>
+     * Does nothing if the card has no file.
+     * </p>
+     */
+    public synchronized void release() {
+        if (file != null) {
+            question = null;
+            answer = null;
+        }
+    }
+
+    /**
+     * Reads the fields not in memory from the card file.
+     * An unreadable (or missing) file gives empty fields.
+     */
+    private void load() {
+        Card card = file != null ? Model.getCard(file) : null;
+        if (question == null) {
+            question = card != null ? card.getQuestion() : "";
+        }
+        if (answer == null) {
+            answer = card != null ? card.getAnswer() : "";
+        }
+    }
+
     /**
      * Gets card file reference
      * 
@@ -0,0 +1,225 @@
+package com.flashcards.models;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of parsed cards, bounded by size in bytes.
+ * 
+ * <p>
+ * Least recently used cards are evicted first. An entry is only used
+ * while the file size and modification time are the same as when it was
+ * read, and is removed when the card is written, renamed or deleted
+ * through the app. Hit, miss and eviction counters can be used to tune
+ * the max size.
+ * </p>
+ * 
+ * @see {@link Model#getCard(File)}
+ */
+public class CardCache {
+
+    // Estimated bytes of an entry, besides its text
+    private static final int ENTRY_OVERHEAD = 160;
+
+    /**
+     * Cached fields of a card file.
+     */
+    private static final class Entry {
+
+        final String question;
+        final String answer;
+        final long size;
+        final long modified;
+        final long weight;
+
+        Entry(String question, String answer, BasicFileAttributes attributes) {
+            this.question = question;
+            this.answer = answer;
+            size = attributes.size();
+            modified = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+            weight = ENTRY_OVERHEAD + 2L * (question.length() + answer.length());
+        }
+
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size() && modified == attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxSize;
+    private long size;
+
+    // Counters
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates an empty cache.
+     * 
+     * @param maxSize the max size, in bytes
+     */
+    public CardCache(long maxSize) {
+        this.maxSize = checkMaxSize(maxSize);
+    }
+
+    /**
+     * Gets a cached card.
+     * 
+     * @param file       the card file
+     * @param attributes the current file attributes
+     * @return a new card with the cached fields, or <code>null</code>
+     * if not cached (or the file changed)
+     */
+    synchronized Card get(File file, BasicFileAttributes attributes) {
+        Path key = key(file);
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.matches(attributes)) {
+            remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return new Card(file, entry.question, entry.answer);
+    }
+
+    /**
+     * Caches a card read from a file.
+     * 
+     * @param card       the card
+     * @param attributes the file attributes when it was read
+     */
+    synchronized void put(Card card, BasicFileAttributes attributes) {
+        Entry entry = new Entry(card.getQuestion(), card.getAnswer(), attributes);
+        if (entry.weight > maxSize) {
+            return;
+        }
+        Path key = key(card.getFile());
+        remove(key);
+        entries.put(key, entry);
+        size += entry.weight;
+        evict();
+    }
+
+    /**
+     * Removes the card of a file, if cached.
+     * 
+     * @param file the card file
+     */
+    public synchronized void invalidate(File file) {
+        remove(key(file));
+    }
+
+    /**
+     * Removes all cards.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Sets the max size, evicting cards if needed.
+     * 
+     * @param maxSize the max size, in bytes
+     */
+    public synchronized void setMaxSize(long maxSize) {
+        this.maxSize = checkMaxSize(maxSize);
+        evict();
+    }
+
+    private static long checkMaxSize(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Max size must not be negative");
+        }
+        return maxSize;
+    }
+
+    /**
+     * Gets the max size.
+     * 
+     * @return the max size, in bytes
+     */
+    public synchronized long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the estimated size of the cached cards.
+     * 
+     * @return the size, in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of cached cards.
+     * 
+     * @return the number of cards
+     */
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of reads served by the cache.
+     * 
+     * @return the hit count
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of reads not served by the cache.
+     * 
+     * @return the miss count
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of cards evicted to respect the max size.
+     * 
+     * @return the eviction count
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CardCache[cards=" + entries.size() + ", size=" + size + "/" + maxSize
+                + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+    }
+
+    private void remove(Path key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            size -= entry.weight;
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            size -= iterator.next().getValue().weight;
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private static Path key(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+}
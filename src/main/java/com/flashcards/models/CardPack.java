@@ -0,0 +1,445 @@
+package com.flashcards.models;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Deck of cards packed in a single file (<code>*.cardpack</code>).
+ * 
+ * <p>
+ * The pack is memory mapped, and an offset table gives any card in
+ * constant time, without reading the other cards. New cards are appended
+ * after the existing ones, without rewriting them.
+ * </p>
+ * 
+ * <p>
+ * File format (big endian):
+ * <ul>
+ *     <li><strong>Header</strong>: magic, version and table offset
+ *     <li><strong>Cards</strong>: name, question and answer (UTF-8)
+ *     <li><strong>Table</strong>: card count, then offset and lengths of each card
+ * </ul>
+ * Appending writes the new cards and a new table at the end of the file,
+ * then points the header to the new table. Until then, the pack still
+ * reads as before. Old tables are dead space: when it passes half of
+ * the live data, the next append rewrites the pack without it (to a
+ * temporary file, then moved over the pack).
+ * </p>
+ * 
+ * @see {@link Card}
+ */
+public class CardPack {
+
+    public static final String EXTENSION = "cardpack";
+
+    private static final int MAGIC = 0x4643504B; // "FCPK"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int ENTRY_SIZE = 20;
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final int table;
+    private final int count;
+
+    private CardPack(File file, ByteBuffer buffer, int table, int count) {
+        this.file = file;
+        this.buffer = buffer;
+        this.table = table;
+        this.count = count;
+    }
+
+    /**
+     * Opens a pack.
+     * 
+     * @param file the pack file
+     * @return the pack
+     * @throws IOException if the file can't be read or isn't a valid pack
+     */
+    public static CardPack open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Pack too big: " + file);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            long table = checkHeader(file, buffer, size);
+            int count = checkCount(file, buffer.getInt((int) table), table, size);
+            return new CardPack(file, buffer, (int) table, count);
+        }
+    }
+
+    /**
+     * Checks the header of a pack.
+     * 
+     * @return the table offset
+     */
+    private static long checkHeader(File file, ByteBuffer header, long size) throws IOException {
+        if (size < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a card pack: " + file);
+        }
+        long table = header.getLong(8);
+        if (table < HEADER_SIZE || table + 4 > size) {
+            throw new IOException("Corrupt card pack: " + file);
+        }
+        return table;
+    }
+
+    /**
+     * Checks the card count of a pack table.
+     * 
+     * @return the card count
+     */
+    private static int checkCount(File file, int count, long table, long size) throws IOException {
+        if (count < 0 || table + 4 + (long) count * ENTRY_SIZE > size) {
+            throw new IOException("Corrupt card pack: " + file);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the pack file.
+     * 
+     * @return the pack file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the number of cards.
+     * 
+     * @return the number of cards
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets a card name (file name without extension).
+     * 
+     * @param i the card index
+     * @return the card name
+     */
+    public String getName(int i) {
+        int entry = entry(i);
+        return decode(buffer.getLong(entry), buffer.getInt(entry + 8));
+    }
+
+    /**
+     * Gets a card.
+     * 
+     * <p>
+     * The card file is the card name in the pack folder,
+     * as it would be after {@link #unpack}.
+     * </p>
+     * 
+     * @param i the card index
+     * @return the card
+     */
+    public Card getCard(int i) {
+        int entry = entry(i);
+        long offset = buffer.getLong(entry);
+        int nameLength = buffer.getInt(entry + 8);
+        int questionLength = buffer.getInt(entry + 12);
+        int answerLength = buffer.getInt(entry + 16);
+
+        String name = decode(offset, nameLength);
+        return new Card(new File(file.getAbsoluteFile().getParentFile(), name + "." + Card.EXTENSION),
+                decode(offset + nameLength, questionLength),
+                decode(offset + nameLength + questionLength, answerLength));
+    }
+
+    /**
+     * Writes the cards as <code>Card</code> files in a folder.
+     * 
+     * @param folder the folder to write cards
+     * @return the number of cards written
+     * @see {@link Model#setCard}
+     */
+    public int unpack(File folder) {
+        Model.touchDirectory(folder);
+        for (int i = 0; i < count; i++) {
+            Card card = getCard(i);
+            Model.setCard(card, new File(folder, card.getFile().getName()));
+        }
+        return count;
+    }
+
+    /**
+     * Creates a pack with the <code>Card</code> files of a folder.
+     * 
+     * @param folder the cards folder
+     * @param file   the pack file to create (replaced if exists)
+     * @return the number of cards packed
+     * @throws IOException if an I/O error occurs
+     */
+    public static int pack(File folder, File file) throws IOException {
+        Card[] cards = Model.getLazyCardsList(folder);
+
+        // Read one card at a time (skip invalid cards)
+        return write(file, () -> Arrays.stream(cards)
+                .map(card -> Model.getCard(card.getFile()))
+                .filter(Objects::nonNull)
+                .iterator());
+    }
+
+    /**
+     * Creates a pack with cards.
+     * 
+     * <p>
+     * The pack is written to a temporary file and then moved over the
+     * pack file, so a failed write leaves the previous pack as it was.
+     * </p>
+     * 
+     * @param file  the pack file to create (replaced if exists)
+     * @param cards the cards
+     * @return the number of cards written
+     * @throws IOException if an I/O error occurs
+     */
+    public static int write(File file, Iterable<Card> cards) throws IOException {
+        File temp = Model.createTempFile(file);
+        int total;
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+            channel.write(header(0));
+            total = append(channel, HEADER_SIZE, new ByteArrayOutputStream(), 0, cards);
+        } catch (IOException | RuntimeException e) {
+            temp.delete();
+            throw e;
+        }
+        replace(temp, file);
+        return total;
+    }
+
+    /**
+     * Appends cards to a pack, without rewriting the cards already there.
+     * 
+     * <p>
+     * Only the table is read (the pack isn't mapped), so a pack that
+     * needs to be compacted can be replaced.
+     * </p>
+     * 
+     * @param file  the pack file
+     * @param cards the cards to append
+     * @return the number of cards in the pack
+     * @throws IOException if an I/O error occurs
+     */
+    public static int append(File file, Iterable<Card> cards) throws IOException {
+        File temp = null;
+        int total;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            ByteBuffer table = readTable(file, channel, size);
+            long live = liveSize(table);
+            if (size - live > live / 2) {
+
+                // Compact (replaces the pack once closed)
+                temp = Model.createTempFile(file);
+                total = compact(channel, table, temp, cards);
+            } else {
+
+                // Current table entries
+                ByteArrayOutputStream entries = new ByteArrayOutputStream();
+                entries.write(table.array(), 4, table.capacity() - 4);
+                try {
+                    total = append(channel, size, entries, table.getInt(0), cards);
+                } catch (IOException | RuntimeException e) {
+                    channel.truncate(size);
+                    throw e;
+                }
+            }
+        }
+        if (temp != null) {
+            replace(temp, file);
+        }
+        return total;
+    }
+
+    /**
+     * Reads the table of a pack: card count, then the entries.
+     */
+    private static ByteBuffer readTable(File file, FileChannel channel, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Pack too big: " + file);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        read(channel, header, 0);
+        long table = checkHeader(file, header, size);
+        ByteBuffer countBytes = ByteBuffer.allocate(4);
+        read(channel, countBytes, table);
+        int count = checkCount(file, countBytes.getInt(0), table, size);
+        ByteBuffer entries = ByteBuffer.allocate(4 + count * ENTRY_SIZE);
+        read(channel, entries, table);
+        return entries;
+    }
+
+    private static void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Rewrites a pack without dead space, with more cards, to a file.
+     * Card bytes are copied by the operating system, without decoding.
+     * 
+     * @param in    the pack channel
+     * @param table the pack table (see {@link #readTable})
+     * @param temp  the file to write (deleted if it fails)
+     * @param cards the cards to append
+     * @return the number of cards in the pack
+     * @throws IOException if an I/O error occurs
+     */
+    private static int compact(FileChannel in, ByteBuffer table, File temp, Iterable<Card> cards)
+            throws IOException {
+        int count = table.getInt(0);
+        ByteArrayOutputStream entries = new ByteArrayOutputStream(count * ENTRY_SIZE);
+        DataOutputStream newTable = new DataOutputStream(entries);
+
+        try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+            out.write(header(0));
+            long position = HEADER_SIZE;
+            for (int i = 0; i < count; i++) {
+                int entry = 4 + i * ENTRY_SIZE;
+                long offset = table.getLong(entry);
+                int nameLength = table.getInt(entry + 8);
+                int questionLength = table.getInt(entry + 12);
+                int answerLength = table.getInt(entry + 16);
+                long length = (long) nameLength + questionLength + answerLength;
+                for (long copied = 0; copied < length; ) {
+                    long n = in.transferTo(offset + copied, length - copied, out);
+                    if (n <= 0) {
+                        throw new IOException("Corrupt card pack: " + temp);
+                    }
+                    copied += n;
+                }
+                newTable.writeLong(position);
+                newTable.writeInt(nameLength);
+                newTable.writeInt(questionLength);
+                newTable.writeInt(answerLength);
+                position += length;
+            }
+            return append(out, position, entries, count, cards);
+        } catch (IOException | RuntimeException e) {
+            temp.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves a written pack over a pack file.
+     */
+    private static void replace(File temp, File file) throws IOException {
+        try {
+            Files.move(temp.toPath(), file.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the bytes of header, cards and current table of a pack
+     * (the rest of the file is dead space).
+     */
+    private static long liveSize(ByteBuffer table) {
+        int count = table.getInt(0);
+        long size = HEADER_SIZE + 4 + (long) count * ENTRY_SIZE;
+        for (int i = 0; i < count; i++) {
+            int entry = 4 + i * ENTRY_SIZE;
+            size += (long) table.getInt(entry + 8) + table.getInt(entry + 12) + table.getInt(entry + 16);
+        }
+        return size;
+    }
+
+    /**
+     * Writes cards and the new table at a position,
+     * then points the header to the new table.
+     * 
+     * @param channel  the pack channel
+     * @param position the position to write
+     * @param entries  the table entries of the cards already in the pack
+     * @param count    the number of cards already in the pack
+     * @param cards    the cards to write
+     * @return the number of cards in the pack
+     * @throws IOException if an I/O error occurs
+     */
+    private static int append(FileChannel channel, long position, ByteArrayOutputStream entries,
+            int count, Iterable<Card> cards) throws IOException {
+        channel.position(position);
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+        DataOutputStream table = new DataOutputStream(entries);
+
+        // Cards
+        for (Card card : cards) {
+            byte[] name = Model.getFileName(card.getFile()).getBytes(StandardCharsets.UTF_8);
+            byte[] question = card.getQuestion().getBytes(StandardCharsets.UTF_8);
+            byte[] answer = card.getAnswer().getBytes(StandardCharsets.UTF_8);
+            long end = position + name.length + question.length + answer.length;
+            if (end + 4 + (long) (count + 1) * ENTRY_SIZE > Integer.MAX_VALUE) {
+                throw new IOException("Pack too big");
+            }
+
+            table.writeLong(position);
+            table.writeInt(name.length);
+            table.writeInt(question.length);
+            table.writeInt(answer.length);
+            out.write(name);
+            out.write(question);
+            out.write(answer);
+            position += name.length + question.length + answer.length;
+            count++;
+        }
+
+        // Table
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(count);
+        entries.writeTo(data);
+        data.flush();
+        channel.force(false);
+
+        // Header
+        channel.write(header(position), 0);
+        channel.force(false);
+        return count;
+    }
+
+    private static ByteBuffer header(long table) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(table).flip();
+        return header;
+    }
+
+    private int entry(int i) {
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return table + 4 + i * ENTRY_SIZE;
+    }
+
+    private String decode(long offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get((int) offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
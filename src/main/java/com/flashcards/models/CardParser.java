@@ -0,0 +1,151 @@
+package com.flashcards.models;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Parser of the <code>Card</code> file format.
+ * 
+ * <p>
+ * State machine over the file lines: a separator line enters a
+ * {@link FileField}, and the same separator leaves it. Field lines are
+ * appended into reusable buffers, so parsing is linear in the card length.
+ * A parser can be reused, but not shared between threads.
+ * </p>
+ * 
+ * <p>
+ * The buffers are also used by {@link CardReader}, which finds the
+ * fields itself and hands over whole field texts.
+ * </p>
+ * 
+ * @see {@link FileField}
+ */
+final class CardParser {
+
+    // Buffers bigger than this aren't kept between cards
+    private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+    private StringBuilder question = new StringBuilder();
+    private StringBuilder answer = new StringBuilder();
+
+    // Current field (null when outside a field)
+    private FileField field;
+
+    /**
+     * Reads card object from a reader.
+     * 
+     * @param file   the card file
+     * @param reader the reader of the card file
+     * @return the card, or <code>null</code> if a field isn't terminated
+     * @throws IOException if an I/O error occurs
+     */
+    Card parse(File file, BufferedReader reader) throws IOException {
+        reset();
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line(line);
+        }
+
+        if (field != null) {
+            return null;
+        }
+        return toCard(file);
+    }
+
+    /**
+     * Creates the card with the parsed fields.
+     * 
+     * @param file the card file
+     * @return the card
+     */
+    Card toCard(File file) {
+        return new Card(file, question.toString(), answer.toString());
+    }
+
+    /**
+     * Clears the parser state to read a new card.
+     */
+    void reset() {
+        question = reset(question);
+        answer = reset(answer);
+        field = null;
+    }
+
+    /**
+     * Moves the state machine by one line.
+     * 
+     * @param line the line (without line terminator)
+     */
+    void line(String line) {
+
+        // Enter a field
+        if (field == null) {
+            field = FileField.of(line);
+            return;
+        }
+
+        StringBuilder buffer = buffer(field);
+        if (!line.equals(field.separator)) {
+
+            // Field line (properties are skipped)
+            if (buffer != null) {
+                buffer.append('\n').append(line);
+            }
+        } else {
+
+            // Leave the field (without the first line break)
+            if (buffer != null && buffer.length() > 0) {
+                buffer.deleteCharAt(0);
+            }
+            field = null;
+        }
+    }
+
+    /**
+     * Adds a whole field, same as passing its lines to {@link #line}.
+     * 
+     * @param field the field
+     * @param text  the field lines, joined with <code>\n</code>
+     * @param lines the number of field lines
+     */
+    void field(FileField field, String text, int lines) {
+        StringBuilder buffer = buffer(field);
+        if (buffer == null) {
+            return;
+        }
+
+        // Same field twice: keep the line based result
+        if (buffer.length() > 0) {
+            if (lines > 0) {
+                buffer.append('\n').append(text);
+            }
+            buffer.deleteCharAt(0);
+        } else {
+            buffer.append(text);
+        }
+    }
+
+    /**
+     * Gets the buffer of a field.
+     * 
+     * @param field the field
+     * @return the buffer, or <code>null</code> if the field isn't kept
+     */
+    private StringBuilder buffer(FileField field) {
+        switch (field) {
+            case FileField.QUESTION: return question;
+            case FileField.ANSWER: return answer;
+            default: return null;
+        }
+    }
+
+    private static StringBuilder reset(StringBuilder buffer) {
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            return new StringBuilder();
+        }
+        buffer.setLength(0);
+        return buffer;
+    }
+}
@@ -0,0 +1,279 @@
+package com.flashcards.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * NIO reader of the <code>Card</code> file format.
+ * 
+ * <p>
+ * Small files are read with a single {@link FileChannel} read into a
+ * reusable buffer, and large files are memory mapped. Separator lines are
+ * found directly in the bytes, and only the field ranges are decoded
+ * (UTF-8, with a fast path for ASCII text). Line terminators are the same
+ * as {@link java.io.BufferedReader#readLine()}: <code>\n</code>,
+ * <code>\r</code> or <code>\r\n</code>.
+ * </p>
+ * 
+ * @see {@link CardParser}
+ */
+final class CardReader {
+
+    // Files bigger than this are memory mapped
+    static final int MAP_THRESHOLD = 1 << 16;
+
+    // Read buffer of each thread (for small files)
+    private static final ThreadLocal<ByteBuffer> BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAP_THRESHOLD));
+
+    private CardReader() {}
+
+    /**
+     * Reads card object from a file.
+     * 
+     * @param file   the file to get card
+     * @param parser the parser to hold the fields
+     * @param entry  the index entry to fill with the field ranges.
+     * Can be <code>null</code>
+     * @return the card, or <code>null</code> if a field isn't terminated
+     * @throws IOException if an I/O error occurs
+     */
+    static Card read(File file, CardParser parser, DeckIndex.Entry entry) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return parse(file, read(channel), parser, entry);
+        }
+    }
+
+    /**
+     * Reads card object from a file, using the field ranges of its
+     * index entry instead of scanning for the separators.
+     * 
+     * <p>
+     * Only the ranges are checked: each must still be between its
+     * separator lines, so a file changed keeping its size and
+     * modification time is parsed again.
+     * </p>
+     * 
+     * @param file  the file to get card
+     * @param entry the index entry of the file (with ranges)
+     * @return the card, or <code>null</code> if the ranges don't match
+     * @throws IOException if an I/O error occurs
+     */
+    static Card read(File file, DeckIndex.Entry entry) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer bytes = read(channel);
+            if (!isField(bytes, FileField.QUESTION, entry.questionStart, entry.questionEnd)
+                    || !isField(bytes, FileField.ANSWER, entry.answerStart, entry.answerEnd)) {
+                return null;
+            }
+            return new Card(file,
+                    decode(bytes, entry.questionStart, entry.questionEnd),
+                    decode(bytes, entry.answerStart, entry.answerEnd));
+        }
+    }
+
+    /**
+     * Checks if a byte range is the content of a field: right after its
+     * opening separator line, and followed by its closing one.
+     */
+    private static boolean isField(ByteBuffer bytes, FileField field, int start, int end) {
+        int limit = bytes.limit();
+        if (end > limit) {
+            return false;
+        }
+        int length = field.separator.length();
+
+        // Opening separator (ended by a line terminator)
+        int lineEnd = start;
+        if (lineEnd > 0 && bytes.get(lineEnd - 1) == '\n') {
+            lineEnd--;
+        }
+        if (lineEnd > 0 && bytes.get(lineEnd - 1) == '\r') {
+            lineEnd--;
+        }
+        int lineStart = lineEnd - length;
+        if (lineEnd == start || lineStart < 0 || !field.isSeparator(bytes, lineStart, lineEnd)
+                || (lineStart > 0 && !isLineEnd(bytes.get(lineStart - 1)))) {
+            return false;
+        }
+
+        // Closing separator (after the last content line terminator, if any)
+        int next = end;
+        if (!isSeparatorLine(bytes, field, next)) {
+            if (next < limit && bytes.get(next) == '\r') {
+                next++;
+            }
+            if (next < limit && bytes.get(next) == '\n') {
+                next++;
+            }
+            if (next == end || !isSeparatorLine(bytes, field, next)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSeparatorLine(ByteBuffer bytes, FileField field, int start) {
+        int end = start + field.separator.length();
+        return end <= bytes.limit() && field.isSeparator(bytes, start, end)
+                && (end == bytes.limit() || isLineEnd(bytes.get(end)));
+    }
+
+    private static boolean isLineEnd(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    /**
+     * Reads all bytes of a channel (small files in the thread buffer,
+     * large files memory mapped).
+     * 
+     * @param channel the file channel
+     * @return the bytes, from position to limit
+     * @throws IOException if an I/O error occurs
+     */
+    private static ByteBuffer read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > MAP_THRESHOLD) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ByteBuffer bytes = BUFFER.get();
+        bytes.clear();
+        while (channel.read(bytes) > 0) {}
+        bytes.flip();
+        return bytes;
+    }
+
+    /**
+     * Reads card object from the bytes of a card file.
+     * 
+     * @param file   the card file
+     * @param bytes  the bytes, from position to limit
+     * @param parser the parser to hold the fields
+     * @param entry  the index entry to fill with the field ranges.
+     * Can be <code>null</code>
+     * @return the card, or <code>null</code> if a field isn't terminated
+     */
+    static Card parse(File file, ByteBuffer bytes, CardParser parser, DeckIndex.Entry entry) {
+        parser.reset();
+
+        // Field ranges (-1 if field not found, -2 if found twice)
+        int questionStart = -1, questionEnd = 0;
+        int answerStart = -1, answerEnd = 0;
+
+        FileField field = null;
+        int contentStart = 0; // first byte of the field content
+        int contentEnd = 0;   // end of the last field line
+        int lines = 0;        // number of field lines
+
+        int end = bytes.limit();
+        int start = bytes.position();
+        while (start < end) {
+
+            // Next line
+            int lineEnd = start;
+            while (lineEnd < end && bytes.get(lineEnd) != '\n' && bytes.get(lineEnd) != '\r') {
+                lineEnd++;
+            }
+            int next = lineEnd;
+            if (next < end) {
+                next += (bytes.get(next) == '\r' && next + 1 < end && bytes.get(next + 1) == '\n') ? 2 : 1;
+            }
+
+            if (field == null) {
+
+                // Enter a field
+                field = FileField.of(bytes, start, lineEnd);
+                contentStart = next;
+                lines = 0;
+            } else if (field.isSeparator(bytes, start, lineEnd)) {
+
+                // Leave the field
+                if (field != FileField.PROPERTIES) {
+                    int rangeEnd = lines > 0 ? contentEnd : contentStart;
+                    parser.field(field, decode(bytes, contentStart, rangeEnd), lines);
+                    if (field == FileField.QUESTION) {
+                        questionStart = questionStart == -1 ? contentStart : -2;
+                        questionEnd = rangeEnd;
+                    } else {
+                        answerStart = answerStart == -1 ? contentStart : -2;
+                        answerEnd = rangeEnd;
+                    }
+                }
+                field = null;
+            } else {
+
+                // Field line
+                contentEnd = lineEnd;
+                lines++;
+            }
+            start = next;
+        }
+
+        if (field != null) {
+            return null;
+        }
+
+        // Index ranges (only if each field is found once)
+        if (entry != null) {
+            if (questionStart < 0 || answerStart < 0) {
+                entry.questionStart = -1;
+            } else {
+                entry.questionStart = questionStart;
+                entry.questionEnd = questionEnd;
+                entry.answerStart = answerStart;
+                entry.answerEnd = answerEnd;
+            }
+        }
+        return parser.toCard(file);
+    }
+
+    /**
+     * Decodes a range of UTF-8 bytes, joining lines with <code>\n</code>.
+     * 
+     * @param bytes the bytes
+     * @param start the range start (inclusive)
+     * @param end   the range end (exclusive)
+     * @return the text
+     */
+    private static String decode(ByteBuffer bytes, int start, int end) {
+        int length = end - start;
+        if (length == 0) {
+            return "";
+        }
+        byte[] array;
+        int offset;
+        if (bytes.hasArray()) {
+            array = bytes.array();
+            offset = bytes.arrayOffset() + start;
+        } else {
+            array = new byte[length];
+            bytes.get(start, array);
+            offset = 0;
+        }
+
+        // ASCII fast path
+        boolean ascii = true;
+        boolean carriageReturn = false;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = array[i];
+            if (b < 0) {
+                ascii = false;
+            } else if (b == '\r') {
+                carriageReturn = true;
+            }
+        }
+        String text = ascii
+                ? new String(array, offset, length, StandardCharsets.ISO_8859_1)
+                : new String(array, offset, length, StandardCharsets.UTF_8);
+
+        // Line terminators
+        if (carriageReturn) {
+            text = text.replace("\r\n", "\n").replace('\r', '\n');
+        }
+        return text;
+    }
+}
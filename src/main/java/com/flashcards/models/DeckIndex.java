@@ -0,0 +1,223 @@
+package com.flashcards.models;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Metadata index of a cards folder, saved inside the folder.
+ * 
+ * <p>
+ * Keeps, for each card file, its size, modification time and the byte
+ * ranges of question and answer. An entry whose size and modification
+ * time still match the file is trusted, so the card can be read without
+ * scanning for the separators (only the separators around the ranges
+ * are checked). A missing or corrupt index file is just an empty index:
+ * it's rebuilt as cards are read.
+ * </p>
+ * 
+ * <p>
+ * File format (big endian): magic, version, entry count, entries and a
+ * CRC32 of everything before it.
+ * </p>
+ * 
+ * @see {@link CardReader}
+ */
+final class DeckIndex {
+
+    // Index file name (inside the cards folder)
+    static final String FILE_NAME = ".cards.index";
+
+    private static final int MAGIC = 0x46434958; // "FCIX"
+    private static final int VERSION = 2;
+
+    /**
+     * Index entry of one card file.
+     */
+    static final class Entry {
+
+        String name;
+        long size;
+        long modified; // nanoseconds
+
+        // Field byte ranges (questionStart < 0 if the card must be parsed)
+        int questionStart = -1;
+        int questionEnd;
+        int answerStart;
+        int answerEnd;
+
+        /**
+         * Checks if this entry still describes a file.
+         * 
+         * @param attributes the current file attributes
+         * @return <code>true</code> if size and modification time match
+         */
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size()
+                    && modified == attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Checks if the field ranges can be used to read the card.
+         * 
+         * @return <code>true</code> if the ranges are valid
+         */
+        boolean hasRanges() {
+            return questionStart >= 0 && questionStart <= questionEnd && questionEnd <= size
+                    && answerStart >= 0 && answerStart <= answerEnd && answerEnd <= size;
+        }
+    }
+
+    private final File folder;
+    private final Map<String, Entry> entries;
+
+    private DeckIndex(File folder, Map<String, Entry> entries) {
+        this.folder = folder;
+        this.entries = entries;
+    }
+
+    /**
+     * Loads the index of a folder.
+     * 
+     * @param folder the cards folder
+     * @return the index (empty if missing or corrupt)
+     */
+    static DeckIndex load(File folder) {
+        Map<String, Entry> entries = new HashMap<>();
+        Path path = new File(folder, FILE_NAME).toPath();
+        if (!Files.isRegularFile(path)) {
+            return new DeckIndex(folder, entries);
+        }
+
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            if (bytes.length < 16) {
+                return new DeckIndex(folder, entries);
+            }
+
+            // Checksum
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length - 4);
+            if ((int) crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt()) {
+                return new DeckIndex(folder, entries);
+            }
+
+            // Entries
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return new DeckIndex(folder, entries);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Entry entry = new Entry();
+                entry.name = in.readUTF();
+                entry.size = in.readLong();
+                entry.modified = in.readLong();
+                entry.questionStart = in.readInt();
+                entry.questionEnd = in.readInt();
+                entry.answerStart = in.readInt();
+                entry.answerEnd = in.readInt();
+                entries.put(entry.name, entry);
+            }
+        } catch (IOException | RuntimeException e) {
+            entries.clear();
+        }
+        return new DeckIndex(folder, entries);
+    }
+
+    /**
+     * Gets the entry of a card file.
+     * 
+     * @param name the file name
+     * @return the entry, or <code>null</code> if not indexed
+     */
+    Entry get(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Replaces all entries, if they changed, and saves the index.
+     * 
+     * @param newEntries the entries of the cards in the folder
+     */
+    void update(Collection<Entry> newEntries) {
+
+        // Changed?
+        boolean changed = newEntries.size() != entries.size();
+        for (Entry entry : newEntries) {
+            if (changed) {
+                break;
+            }
+            changed = entry != entries.get(entry.name);
+        }
+        if (!changed) {
+            return;
+        }
+
+        entries.clear();
+        for (Entry entry : newEntries) {
+            entries.put(entry.name, entry);
+        }
+        try {
+            save();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the index file (to a temporary file, then replaces it).
+     * 
+     * @throws IOException if an I/O error occurs
+     */
+    private void save() throws IOException {
+        Path path = new File(folder, FILE_NAME).toPath();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        for (Entry entry : entries.values()) {
+            out.writeUTF(entry.name);
+            out.writeLong(entry.size);
+            out.writeLong(entry.modified);
+            out.writeInt(entry.questionStart);
+            out.writeInt(entry.questionEnd);
+            out.writeInt(entry.answerStart);
+            out.writeInt(entry.answerEnd);
+        }
+
+        // Checksum
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+
+        // Unique temporary file, so saves at the same time don't collide
+        Path temp = Files.createTempFile(folder.toPath(), FILE_NAME, ".tmp");
+        try {
+            Files.write(temp, bytes.toByteArray());
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
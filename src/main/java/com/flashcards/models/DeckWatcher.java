@@ -0,0 +1,173 @@
+package com.flashcards.models;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Watches a cards folder and reports which cards changed.
+ * 
+ * <p>
+ * Only the files that were created, modified or deleted are read again,
+ * so keeping a loaded deck up to date costs one file read per change.
+ * Events run on the watcher thread.
+ * </p>
+ * 
+ * @see {@link Model#CARDS_FOLDER}
+ */
+public class DeckWatcher implements Closeable {
+
+    /**
+     * Receives the changes of a watched folder.
+     */
+    public interface Listener {
+
+        /**
+         * Called when a card file is created.
+         * 
+         * @param card the new card
+         */
+        void cardAdded(Card card);
+
+        /**
+         * Called when a card file is modified.
+         * 
+         * @param card the card, as it is now
+         */
+        void cardUpdated(Card card);
+
+        /**
+         * Called when a card file is deleted (or renamed),
+         * or can't be read as a card anymore.
+         * 
+         * @param file the file of the removed card
+         */
+        void cardRemoved(File file);
+
+        /**
+         * Called when changes were lost and the whole folder
+         * must be read again.
+         */
+        void deckChanged();
+    }
+
+    private final Path folder;
+    private final Listener listener;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Creates a watcher of a folder. Call {@link #start()} to begin.
+     * 
+     * @param folder   the folder to watch
+     * @param listener the listener of changes
+     * @throws IOException if the folder can't be watched
+     */
+    public DeckWatcher(File folder, Listener listener) throws IOException {
+        this.folder = folder.toPath();
+        this.listener = listener;
+        watchService = FileSystems.getDefault().newWatchService();
+        this.folder.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        thread = new Thread(this::watch, "deck-watcher");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops watching.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    /**
+     * Watch loop (watcher thread).
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+
+                // Last change of each file
+                Map<Path, WatchEvent.Kind<?>> changes = new LinkedHashMap<>();
+                boolean overflow = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        overflow = true;
+                    } else {
+                        Path path = folder.resolve((Path) event.context());
+                        WatchEvent.Kind<?> previous = changes.get(path);
+                        changes.put(path, previous == StandardWatchEventKinds.ENTRY_CREATE
+                                && event.kind() == StandardWatchEventKinds.ENTRY_MODIFY
+                                ? previous : event.kind());
+                    }
+                }
+
+                // Report
+                if (overflow) {
+                    listener.deckChanged();
+                } else {
+                    changes.forEach(this::report);
+                }
+
+                if (!key.reset()) {
+                    listener.deckChanged();
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stop watching
+        }
+    }
+
+    /**
+     * Reports the change of a file.
+     * 
+     * @param path the file path
+     * @param kind the last kind of change
+     */
+    private void report(Path path, WatchEvent.Kind<?> kind) {
+        File file = path.toFile();
+        if (!Card.EXTENSION.equals(Model.getFileExtension(file))) {
+            return;
+        }
+
+        // Deleted
+        if (kind == StandardWatchEventKinds.ENTRY_DELETE || !file.isFile()) {
+            listener.cardRemoved(file);
+            return;
+        }
+
+        // Created or modified (a file that isn't a valid card anymore,
+        // like one still being written, is removed until it is again)
+        Card card = Model.getCard(file);
+        if (card == null) {
+            listener.cardRemoved(file);
+            return;
+        }
+        if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+            listener.cardAdded(card);
+        } else {
+            listener.cardUpdated(card);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.flashcards.models;
 
+import java.nio.ByteBuffer;
+
 enum FileField {
     PROPERTIES("---"),
     QUESTION("???"),
@@ -7,4 +9,56 @@ enum FileField {
 
     String separator;
     FileField(String separator) { this.separator = separator; }
+
+    /**
+     * Gets the field opened by a separator line.
+     * 
+     * @param line the line
+     * @return the field, or <code>null</code> if line isn't a separator
+     */
+    static FileField of(String line) {
+        for (FileField field : values()) {
+            if (line.equals(field.separator)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the field opened by a separator line, read from bytes.
+     * 
+     * @param bytes the bytes
+     * @param start the line start (inclusive)
+     * @param end   the line end (exclusive, without line terminator)
+     * @return the field, or <code>null</code> if line isn't a separator
+     */
+    static FileField of(ByteBuffer bytes, int start, int end) {
+        for (FileField field : values()) {
+            if (field.isSeparator(bytes, start, end)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a line, read from bytes, is this field separator.
+     * 
+     * @param bytes the bytes
+     * @param start the line start (inclusive)
+     * @param end   the line end (exclusive, without line terminator)
+     * @return <code>true</code> if the line is the separator
+     */
+    boolean isSeparator(ByteBuffer bytes, int start, int end) {
+        if (end - start != separator.length()) {
+            return false;
+        }
+        for (int i = 0; i < separator.length(); i++) {
+            if (bytes.get(start + i) != separator.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -3,12 +3,37 @@ package com.flashcards.models;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * Model class to manage <code>Cards</code>.
@@ -25,77 +50,74 @@ public class Model {
     // Default folder to save cards
     public static final String CARDS_FOLDER = "./cards";
 
+    // Max threads used to load cards (see setLoadParallelism)
+    private static int loadParallelism = Integer.getInteger("flashcards.loadParallelism",
+            Runtime.getRuntime().availableProcessors());
+
+    // Parsed cards cache (see getCardCache)
+    private static final CardCache CACHE = new CardCache(Long.getLong("flashcards.cacheSize", 32L << 20));
+
+    // Card parser of each thread
+    private static final ThreadLocal<CardParser> PARSER = ThreadLocal.withInitial(CardParser::new);
+
     /**
      * Reads card object from a file.
      * 
+     * <p>
+     * Cards are cached (see {@link #getCardCache()}), so reading
+     * the same unchanged file again doesn't parse it.
+     * </p>
+     * 
      * @param file the file to get card
-     * @return the card
+     * @return the card, or <code>null</code> if it can't be read
      */
     public static Card getCard(File file) {
-
-        // Card
-        Properties properties = null;
-        String question = "";
-        String answer = "";
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-
-            FileField field = null;
-            String line = "";
-            while ((line = reader.readLine()) != null) {
-                
-                if (field != null) {
-                    switch (field) {
-
-                        // Properties
-                        case FileField.PROPERTIES:
-                            if (!line.equals(FileField.PROPERTIES.separator)) {
-                            } else { field = null; }
-                            break;
-                        
-                        // Question
-                        case FileField.QUESTION:
-                            if (!line.equals(FileField.QUESTION.separator)) {
-                                question += "\n" + line;
-                            } else {
-                                question = question.length() > 0 ?
-                                        question.substring(1) : "";
-                                field = null;
-                            }
-                            break;
-                        
-                        // Answer
-                        case FileField.ANSWER:
-                            if (!line.equals(FileField.ANSWER.separator)) {
-                                answer += "\n" + line;
-                            } else {
-                                answer = answer.length() > 0 ?
-                                        answer.substring(1) : "";
-                                field = null;
-                            }
-                            break;
-                    }
-
-                // Enter a field
-                } else {
-                    if (line.equals(FileField.PROPERTIES.separator)) {
-                        field = FileField.PROPERTIES;
-                    } else if (line.equals(FileField.QUESTION.separator)) {
-                        field = FileField.QUESTION;
-                    }else if (line.equals(FileField.ANSWER.separator)) {
-                        field = FileField.ANSWER;
-                    }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            Card card = CACHE.get(file, attributes);
+            if (card == null) {
+                card = CardReader.read(file, PARSER.get(), null);
+                if (card != null) {
+                    CACHE.put(card, attributes);
                 }
-                
             }
+            return card;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
 
-            reader.close();
-
-            // Return card
-            if (field == null) {
-                return new Card(file, question, answer);
-            }
+    /**
+     * Reads card object from a file, without the cache.
+     * 
+     * <p>
+     * For reading many cards once (like indexing or exporting a deck):
+     * cards read this way don't replace the cached ones.
+     * </p>
+     * 
+     * @param file the file to get card
+     * @return the card, or <code>null</code> if it can't be read
+     */
+    public static Card readCard(File file) {
+        try {
+            return CardReader.read(file, PARSER.get(), null);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
 
+    /**
+     * Reads card object from a character stream.
+     * 
+     * @param file   the file reference of the card
+     * @param reader the reader with the card file content
+     * @return the card, or <code>null</code> if it can't be read
+     */
+    public static Card getCard(File file, Reader reader) {
+        try {
+            return PARSER.get().parse(file, new BufferedReader(reader));
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -105,16 +127,156 @@ public class Model {
     /**
      * Writes card in a file.
      * 
-     * @param card
+     * <p>
+     * The card is written to a temporary file, synced to disk and then
+     * moved over the card file, so a crash while saving never leaves a
+     * partially written card.
+     * </p>
+     * 
+     * @param card the card to write
+     * @param file the card file (extension added if missing)
      */
     public static void setCard(Card card, File file) {
+        file = withExtension(file);
+        CACHE.invalidate(file);
 
-        // Add Card extension (if doesn't have)
+        try {
+            File temp = writeTemp(card, file);
+            move(temp, file);
+            syncDirectory(file.getAbsoluteFile().getParentFile());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes many cards, each in its own file.
+     * 
+     * <p>
+     * Same as {@link #setCard} for each card, but folders are synced once
+     * for the whole batch. A card that can't be written doesn't stop the
+     * others.
+     * </p>
+     * 
+     * @param cards the cards to write (in their files)
+     * @return the files that couldn't be written
+     */
+    public static List<File> setCards(Collection<Card> cards) {
+        List<File> failures = new ArrayList<>();
+
+        // Temporary files
+        Map<File, File> temps = new LinkedHashMap<>();
+        for (Card card : cards) {
+            File file = withExtension(card.getFile());
+            CACHE.invalidate(file);
+            try {
+                temps.put(writeTemp(card, file), file);
+            } catch (IOException e) {
+                e.printStackTrace();
+                failures.add(file);
+            }
+        }
+
+        // Commit
+        Set<File> folders = new LinkedHashSet<>();
+        temps.forEach((temp, file) -> {
+            try {
+                move(temp, file);
+                folders.add(file.getAbsoluteFile().getParentFile());
+            } catch (IOException e) {
+                e.printStackTrace();
+                temp.delete();
+                failures.add(file);
+            }
+        });
+        for (File folder : folders) {
+            syncDirectory(folder);
+        }
+        return failures;
+    }
+
+    /**
+     * Moves (renames) a card file.
+     * 
+     * @param file   the card file
+     * @param target the new card file (extension added if missing)
+     * @return the new card file, or <code>null</code> if it can't be moved
+     */
+    public static File moveCard(File file, File target) {
+        try {
+            return moveCardFile(file, target);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Moves (renames) a card file, failing with the reason.
+     * 
+     * @param file   the card file
+     * @param target the new card file (extension added if missing)
+     * @return the new card file
+     * @throws IOException if the card can't be moved
+     */
+    public static File moveCardFile(File file, File target) throws IOException {
+        target = moveCardFile(file, target, false);
+        syncDirectory(target.getAbsoluteFile().getParentFile());
+        if (!file.getAbsoluteFile().getParentFile().equals(target.getAbsoluteFile().getParentFile())) {
+            syncDirectory(file.getAbsoluteFile().getParentFile());
+        }
+        return target;
+    }
+
+    /**
+     * Moves (renames) a card file, maybe without syncing the folders,
+     * for moves of many cards: then sync the folders of the card files
+     * and targets once, with {@link #syncDirectory}, when all are moved.
+     * 
+     * @param file   the card file
+     * @param target the new card file (extension added if missing)
+     * @param sync   <code>false</code> to leave the folders not synced
+     * @return the new card file
+     * @throws IOException if the card can't be moved
+     */
+    public static File moveCardFile(File file, File target, boolean sync) throws IOException {
+        if (sync) {
+            return moveCardFile(file, target);
+        }
+        target = withExtension(target);
+        CACHE.invalidate(file);
+        CACHE.invalidate(target);
+        move(file, target);
+        return target;
+    }
+
+    /**
+     * Adds Card extension to a file (if doesn't have).
+     * 
+     * @param file the file
+     * @return the file with Card extension
+     */
+    private static File withExtension(File file) {
         if (!Card.EXTENSION.equalsIgnoreCase(getFileExtension(file))) {
             file = new File(file.getParentFile(), file.getName() + "." + Card.EXTENSION);
         }
-        
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+        return file;
+    }
+
+    /**
+     * Writes card in a temporary file, next to the card file,
+     * and syncs it to disk.
+     * 
+     * @param card the card to write
+     * @param file the card file
+     * @return the temporary file
+     * @throws IOException if an I/O error occurs
+     */
+    private static File writeTemp(Card card, File file) throws IOException {
+        File temp = createTempFile(file);
+
+        try (FileOutputStream out = new FileOutputStream(temp);
+                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
 
             // Fields
             Properties properties = null;
@@ -139,26 +301,279 @@ public class Model {
             writer.write(answer.length() > 0 ? answer + "\n" : "");
             writer.write(FileField.ANSWER.separator); writer.newLine();
 
-            writer.close();
+            // Sync
+            writer.flush();
+            out.getFD().sync();
 
         } catch (IOException e) {
-            e.printStackTrace();
+            temp.delete();
+            throw e;
+        }
+        return temp;
+    }
+
+    /**
+     * Creates a unique temporary file next to a file, so writers of the
+     * same file at the same time don't collide. It gets the permissions
+     * of a new file (not only the owner's, like a temporary file).
+     * 
+     * @param file the file to write
+     * @return the temporary file
+     * @throws IOException if an I/O error occurs
+     */
+    public static File createTempFile(File file) throws IOException {
+        Path folder = file.getAbsoluteFile().getParentFile().toPath();
+        String prefix = "." + file.getName();
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            return Files.createTempFile(folder, prefix, ".tmp",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-rw-rw-"))).toFile();
+        }
+        return Files.createTempFile(folder, prefix, ".tmp").toFile();
+    }
+
+    /**
+     * Moves a file atomically, replacing the target.
+     * 
+     * @param file   the file
+     * @param target the target file
+     * @throws IOException if an I/O error occurs
+     */
+    private static void move(File file, File target) throws IOException {
+        try {
+            Files.move(file.toPath(), target.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Syncs a directory to disk, so moves into it are durable.
+     * Does nothing where directories can't be synced.
+     * 
+     * @param directory the directory
+     */
+    public static void syncDirectory(File directory) {
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported (e.g. Windows)
         }
     }
 
+    /**
+     * Gets the cache of cards read by {@link #getCard(File)}.
+     * 
+     * <p>
+     * Default max size is 32 MiB, or the <code>flashcards.cacheSize</code>
+     * system property (in bytes).
+     * </p>
+     * 
+     * @return the card cache
+     */
+    public static CardCache getCardCache() {
+        return CACHE;
+    }
+
     /**
      * Gets all cards in <code>cards folder</code>.
      * 
+     * <p>
+     * Cards are loaded in parallel (see {@link #setLoadParallelism}).
+     * Files that can't be read are skipped.
+     * </p>
+     * 
      * @return an array of the cards
      * @see {@link Card}
      * @see {@link #CARDS_FOLDER}
      */
     public static Card[] getCardsList() {
-        ArrayList<Card> cards = new ArrayList<>();
-        for (File f : touchDirectory(CARDS_FOLDER).listFiles()) {
-            cards.add(getCard(f));
+        return getCardsList(touchDirectory(CARDS_FOLDER), loadParallelism, null);
+    }
+
+    /**
+     * Gets all cards in a folder, loading them in parallel.
+     * 
+     * <p>
+     * Cards are returned sorted by file name, no matter the order they
+     * were loaded. A file that can't be read or isn't a valid card doesn't
+     * fail the load: it's left out of the result and added to
+     * <code>failures</code>, if given.
+     * </p>
+     * 
+     * <p>
+     * The folder index is used to skip parsing of cards that didn't change
+     * since the last load, and is updated with the cards that did.
+     * </p>
+     * 
+     * @param folder      the folder to get cards
+     * @param parallelism the max number of files read at the same time
+     * @param failures    list to add the files that failed to load.
+     * Can be <code>null</code>
+     * @return an array of the cards
+     * @see {@link Card}
+     */
+    public static Card[] getCardsList(File folder, int parallelism, List<File> failures) {
+
+        // Files (deterministic order)
+        File[] files = folder.listFiles(Model::isCardFile);
+        if (files == null) {
+            return new Card[] {};
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName));
+
+        // Load cards
+        DeckIndex index = DeckIndex.load(folder);
+        Card[] cards = new Card[files.length];
+        DeckIndex.Entry[] entries = new DeckIndex.Entry[files.length];
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.submit(() -> IntStream.range(0, files.length).parallel().forEach(i -> {
+                entries[i] = index.get(files[i].getName());
+                cards[i] = getCard(files[i], entries, i);
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Card[] {};
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            return new Card[] {};
+        } finally {
+            pool.shutdown();
+        }
+
+        // Update index
+        index.update(Arrays.stream(entries).filter(e -> e != null).toList());
+
+        // Report failures
+        if (failures != null) {
+            for (int i = 0; i < files.length; i++) {
+                if (cards[i] == null) {
+                    failures.add(files[i]);
+                }
+            }
+        }
+        return Arrays.stream(cards).filter(c -> c != null).toArray(Card[]::new);
+    }
+
+    /**
+     * Gets all cards in a folder without reading them.
+     * 
+     * <p>
+     * Only the file names are listed: cards are lazy, so question and
+     * answer are read on first access.
+     * </p>
+     * 
+     * @param folder the folder to get cards
+     * @return an array of the cards, sorted by file name
+     * @see {@link Card#Card(File)}
+     */
+    public static Card[] getLazyCardsList(File folder) {
+        File[] files = folder.listFiles(Model::isCardFile);
+        if (files == null) {
+            return new Card[] {};
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        return Arrays.stream(files).map(Card::new).toArray(Card[]::new);
+    }
+
+    /**
+     * Lists the cards in a folder one by one, without reading them.
+     * 
+     * <p>
+     * Cards are lazy and come in directory order, as the folder is read,
+     * so big folders can be shown before the listing ends.
+     * </p>
+     * 
+     * @param folder the folder to get cards
+     * @param action the action for each card
+     * @throws IOException if the folder can't be read
+     * @see {@link Card#Card(File)}
+     */
+    public static void forEachLazyCard(File folder, Consumer<Card> action) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder.toPath())) {
+            for (Path path : stream) {
+                File file = path.toFile();
+                if (isCardFile(file)) {
+                    action.accept(new Card(file));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a card of a deck, using its index entry if it's up to date.
+     * 
+     * @param file    the card file
+     * @param entries the index entries of the deck files
+     * @param i       the index of the file entry (replaced if outdated,
+     * <code>null</code> if the card can't be read)
+     * @return the card, or <code>null</code> if it can't be read
+     */
+    static Card getCard(File file, DeckIndex.Entry[] entries, int i) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            DeckIndex.Entry entry = entries[i];
+
+            // Up to date
+            if (entry != null && entry.matches(attributes) && entry.hasRanges()) {
+                Card card = CardReader.read(file, entry);
+                if (card != null) {
+                    return card;
+                }
+            }
+
+            // Parse (and index)
+            entry = new DeckIndex.Entry();
+            entry.name = file.getName();
+            entry.size = attributes.size();
+            entry.modified = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+            Card card = CardReader.read(file, PARSER.get(), entry);
+            entries[i] = card != null ? entry : null;
+            return card;
+        } catch (IOException e) {
+            e.printStackTrace();
+            entries[i] = null;
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a file is a card file (by extension).
+     * 
+     * @param file the file
+     * @return <code>true</code> if it's a card file
+     */
+    public static boolean isCardFile(File file) {
+        return file.isFile() && Card.EXTENSION.equals(getFileExtension(file));
+    }
+
+    /**
+     * Gets the max number of files read at the same time
+     * by {@link #getCardsList()}.
+     * 
+     * @return the load parallelism
+     */
+    public static int getLoadParallelism() {
+        return loadParallelism;
+    }
+
+    /**
+     * Sets the max number of files read at the same time
+     * by {@link #getCardsList()}.
+     * 
+     * <p>
+     * Default is the number of available processors, or the
+     * <code>flashcards.loadParallelism</code> system property.
+     * </p>
+     * 
+     * @param parallelism the load parallelism (at least 1)
+     */
+    public static void setLoadParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
         }
-        return cards.toArray(new Card[] {});
+        loadParallelism = parallelism;
     }
 
     /**
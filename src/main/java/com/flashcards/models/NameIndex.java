@@ -0,0 +1,277 @@
+package com.flashcards.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Letter index of card names, for fuzzy filtering.
+ * 
+ * <p>
+ * A name matches a filter when the filter letters appear in the name in
+ * the same order (not necessarily together, spaces in the filter are
+ * ignored). Matches are ranked by a score that prefers consecutive
+ * letters, letters at word starts and short names.
+ * </p>
+ * 
+ * <p>
+ * Letters are indexed: each letter (a bit of a 64-bit mask, see
+ * {@link #mask(String)}) has the names that contain it, shortest
+ * first. A filter only looks at the names of its rarest
+ * letter, keeps those whose mask has all the filter letters (one
+ * <code>AND</code> each) and scores them. A name that matches always has
+ * all the filter letters, so no match is missed (letters sharing a bit
+ * only add candidates, which the score rejects). Once enough matches are
+ * kept, names too long to score better than them end the filter.
+ * </p>
+ * 
+ * <p>
+ * Names are kept lower case in a single character array, numbered by
+ * length, so scanning the names of a letter reads memory in order.
+ * </p>
+ * 
+ * <p>
+ * The index is a snapshot of the cards it was built with: build a new
+ * one when cards change. It can be used by many threads.
+ * </p>
+ * 
+ * @see {@link Card#toString()}
+ */
+public class NameIndex {
+
+    // Score of a letter: match, after the previous one, at a word start
+    private static final int MATCH = 1;
+    private static final int CONSECUTIVE = 5;
+    private static final int WORD_START = 8;
+
+    private final Card[] cards;
+
+    // Names are numbered by length, then card order (the card of each)
+    private final int[] order;
+
+    // Names (lower case): chars[offsets[n]] to chars[offsets[n + 1]]
+    private final char[] chars;
+    private final int[] offsets;
+
+    // Letters of each name
+    private final long[] masks;
+
+    // Names of each letter bit: names[starts[bit]] to names[starts[bit + 1]]
+    private final int[] starts = new int[65];
+    private final int[] names;
+
+    /**
+     * Builds the index.
+     * 
+     * @param cards the cards
+     */
+    public NameIndex(Card[] cards) {
+        this.cards = cards;
+        String[] texts = new String[cards.length];
+        int maxLength = 0;
+        for (int id = 0; id < cards.length; id++) {
+            texts[id] = cards[id].toString().toLowerCase(Locale.ROOT);
+            maxLength = Math.max(maxLength, texts[id].length());
+        }
+
+        // Order by length (counting sort, stable)
+        int[] byLength = new int[maxLength + 2];
+        for (String text : texts) {
+            byLength[text.length() + 1]++;
+        }
+        for (int length = 0; length <= maxLength; length++) {
+            byLength[length + 1] += byLength[length];
+        }
+        order = new int[cards.length];
+        for (int id = 0; id < cards.length; id++) {
+            order[byLength[texts[id].length()]++] = id;
+        }
+
+        // Names and letters
+        offsets = new int[cards.length + 1];
+        masks = new long[cards.length];
+        for (int n = 0; n < cards.length; n++) {
+            String text = texts[order[n]];
+            offsets[n + 1] = offsets[n] + text.length();
+            masks[n] = mask(text);
+            for (long bits = masks[n]; bits != 0; bits &= bits - 1) {
+                starts[Long.numberOfTrailingZeros(bits) + 1]++;
+            }
+        }
+        chars = new char[offsets[cards.length]];
+        for (int n = 0; n < cards.length; n++) {
+            texts[order[n]].getChars(0, length(n), chars, offsets[n]);
+        }
+
+        // Postings
+        for (int bit = 0; bit < 64; bit++) {
+            starts[bit + 1] += starts[bit];
+        }
+        names = new int[starts[64]];
+        int[] next = Arrays.copyOf(starts, 64);
+        for (int n = 0; n < cards.length; n++) {
+            for (long bits = masks[n]; bits != 0; bits &= bits - 1) {
+                names[next[Long.numberOfTrailingZeros(bits)]++] = n;
+            }
+        }
+    }
+
+    /**
+     * Filters cards by name.
+     * 
+     * @param filter the letters to find in the names
+     * @param limit  the max number of cards
+     * @return the matching cards, best first
+     */
+    public List<Card> filter(String filter, int limit) {
+        String query = filter.toLowerCase(Locale.ROOT).replaceAll("\\s+", "");
+        List<Card> results = new ArrayList<>();
+        if (query.isEmpty()) {
+            return results;
+        }
+
+        // Rarest query letter
+        long mask = mask(query);
+        int rarest = Long.numberOfTrailingZeros(mask);
+        for (long bits = mask; bits != 0; bits &= bits - 1) {
+            int bit = Long.numberOfTrailingZeros(bits);
+            if (starts[bit + 1] - starts[bit] < starts[rarest + 1] - starts[rarest]) {
+                rarest = bit;
+            }
+        }
+
+        // Best letter scores (the first letter can't be consecutive)
+        int maxLetters = MATCH + WORD_START + (query.length() - 1) * (MATCH + CONSECUTIVE + WORD_START);
+
+        // Score its names with all the query letters, keeping the best
+        // (a max heap of the kept keys: best score first, then card order)
+        long[] best = new long[Math.max(0, Math.min(limit, cards.length))];
+        int count = 0;
+        for (int p = starts[rarest]; p < starts[rarest + 1] && best.length > 0; p++) {
+            int n = names[p];
+
+            // Longer names can't score better than the kept ones
+            if (count == best.length
+                    && total(maxLetters, length(n), query.length()) < Integer.MAX_VALUE - (int) (best[0] >>> 32)) {
+                break;
+            }
+            if ((masks[n] & mask) != mask) {
+                continue;
+            }
+            int score = score(chars, offsets[n], offsets[n + 1], query);
+            if (score < 0) {
+                continue;
+            }
+            long key = ((long) (Integer.MAX_VALUE - score) << 32) | order[n];
+            if (count < best.length) {
+                best[count] = key;
+                siftUp(best, count++);
+            } else if (key < best[0]) {
+                best[0] = key;
+                siftDown(best, count);
+            }
+        }
+        Arrays.sort(best, 0, count);
+        for (int i = 0; i < count; i++) {
+            results.add(cards[(int) best[i]]);
+        }
+        return results;
+    }
+
+    private int length(int n) {
+        return offsets[n + 1] - offsets[n];
+    }
+
+    /**
+     * Gets the fuzzy score of a name.
+     * 
+     * @param name  the name characters (lower case)
+     * @param start the name start (inclusive)
+     * @param end   the name end (exclusive)
+     * @param query the filter (lower case, no spaces)
+     * @return the score, or <code>-1</code> if the name doesn't match
+     */
+    static int score(char[] name, int start, int end, String query) {
+        int letters = 0;
+        int q = 0;
+        int previous = -2;
+        for (int i = start; i < end && q < query.length(); i++) {
+            if (name[i] != query.charAt(q)) {
+                continue;
+            }
+            letters += MATCH;
+            if (i == previous + 1) {
+                letters += CONSECUTIVE;
+            }
+            if (i == start || !Character.isLetterOrDigit(name[i - 1])) {
+                letters += WORD_START;
+            }
+            previous = i;
+            q++;
+        }
+        if (q < query.length()) {
+            return -1;
+        }
+        return total(letters, end - start, query.length());
+    }
+
+    /**
+     * Gets the score of a name from its letter scores
+     * (each extra character costs a point).
+     */
+    private static int total(int letters, int length, int queryLength) {
+        return Math.max(0, 1000 + letters * 16 - (length - queryLength));
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        while (i > 0 && heap[(i - 1) / 2] < heap[i]) {
+            swap(heap, i, (i - 1) / 2);
+            i = (i - 1) / 2;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int largest = i;
+            for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                if (heap[child] > heap[largest]) {
+                    largest = child;
+                }
+            }
+            if (largest == i) {
+                return;
+            }
+            swap(heap, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(long[] heap, int i, int j) {
+        long t = heap[i];
+        heap[i] = heap[j];
+        heap[j] = t;
+    }
+
+    /**
+     * Gets the letters of a text, as a bit mask
+     * (a bit for each letter and digit, and 28 for other characters).
+     */
+    static long mask(String text) {
+        long mask = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int bit;
+            if (c >= 'a' && c <= 'z') {
+                bit = c - 'a';
+            } else if (c >= '0' && c <= '9') {
+                bit = 26 + c - '0';
+            } else {
+                bit = 36 + c % 28;
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+}
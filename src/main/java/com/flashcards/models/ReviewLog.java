@@ -0,0 +1,322 @@
+package com.flashcards.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of card reviews, saved next to the cards folder.
+ *
+ * <p>
+ * Each review is a fixed-size record: card id, time, grade, interval,
+ * ease and repetitions. Reviews are written by a single background
+ * thread: reviews added while a write is syncing are written together,
+ * with one sync (group commit). Pending reviews are written before the
+ * app exits.
+ * </p>
+ *
+ * <p>
+ * When the log grows past a size (4 MiB, or the
+ * <code>flashcards.reviewLogSize</code> system property, in bytes), the
+ * writer thread compacts it: the last review of each card is saved in a
+ * snapshot file, and the log is emptied. Reviews are read back by
+ * scanning the mapped snapshot, then the mapped log; a torn record at
+ * the end of the log (crash while writing) is dropped.
+ * </p>
+ *
+ * <p>
+ * File format (big endian): magic, version, then 32-byte records.
+ * </p>
+ *
+ * @see {@link Scheduler}
+ */
+public final class ReviewLog {
+
+    // Files (next to the cards folder)
+    public static final String LOG_NAME = "reviews.log";
+    public static final String SNAPSHOT_NAME = "reviews.snapshot";
+
+    private static final int MAGIC = 0x4643524C; // "FCRL"
+    private static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_SIZE = 32;
+
+    // Log size that starts a compaction
+    private static final long COMPACT_SIZE = Long.getLong("flashcards.reviewLogSize", 4L << 20);
+
+    private final File log;
+    private final File snapshot;
+
+    // Reviews waiting to be written
+    private final List<Scheduler.Review> pending = new ArrayList<>();
+
+    // Writer thread (and its log channel)
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "review-log");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private FileChannel channel;
+
+    /**
+     * Creates the review log of a folder.
+     *
+     * @param folder the folder of the log and snapshot files
+     */
+    public ReviewLog(File folder) {
+        log = new File(folder, LOG_NAME);
+        snapshot = new File(folder, SNAPSHOT_NAME);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "review-log-shutdown"));
+    }
+
+    /**
+     * Creates the review log of the app, next to the cards folder.
+     *
+     * @return the review log
+     * @see {@link Model#CARDS_FOLDER}
+     */
+    public static ReviewLog open() {
+        return new ReviewLog(new File(Model.CARDS_FOLDER).getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * Reads the last review of each card, from the snapshot and the log.
+     *
+     * @return the last reviews, by card id
+     * @throws IOException if an I/O error occurs
+     */
+    public Map<Long, Scheduler.Review> replay() throws IOException {
+        Map<Long, Scheduler.Review> reviews = new HashMap<>();
+        replay(snapshot, reviews);
+        replay(log, reviews);
+        return reviews;
+    }
+
+    /**
+     * Adds a review, to be written in background.
+     *
+     * @param review the review
+     */
+    public void append(Scheduler.Review review) {
+        synchronized (pending) {
+            boolean idle = pending.isEmpty();
+            pending.add(review);
+            if (idle) {
+                writer.execute(this::write);
+            }
+        }
+    }
+
+    /**
+     * Waits until the reviews added before are written.
+     */
+    public void flush() {
+        try {
+            writer.submit(() -> {}).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the pending reviews (writer thread).
+     */
+    private void write() {
+        List<Scheduler.Review> reviews;
+        synchronized (pending) {
+            reviews = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        try {
+            if (channel == null) {
+                channel = openLog();
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(reviews.size() * RECORD_SIZE);
+            for (Scheduler.Review review : reviews) {
+                put(buffer, review);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+
+            if (channel.size() > COMPACT_SIZE) {
+                compact();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Opens the log for appending (writer thread).
+     *
+     * <p>
+     * A torn record at the end is cut, and a missing or invalid log
+     * is started over.
+     * </p>
+     *
+     * @return the log channel, at the end
+     * @throws IOException if an I/O error occurs
+     */
+    private FileChannel openLog() throws IOException {
+        FileChannel channel = FileChannel.open(log.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (size >= HEADER_SIZE) {
+            channel.read(header, 0);
+            header.flip();
+        }
+        if (size < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            channel.truncate(0);
+            channel.write(header(), 0);
+            size = HEADER_SIZE;
+        } else {
+            size -= (size - HEADER_SIZE) % RECORD_SIZE;
+            channel.truncate(size);
+        }
+        channel.position(size);
+        return channel;
+    }
+
+    /**
+     * Saves the last review of each card in the snapshot,
+     * then empties the log (writer thread).
+     *
+     * <p>
+     * If the app stops in between, the log is just read again over
+     * the new snapshot, with the same result.
+     * </p>
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void compact() throws IOException {
+        Map<Long, Scheduler.Review> reviews = replay();
+
+        // Snapshot (to a temporary file, then replaces it)
+        File temp = new File(snapshot.getParentFile(), SNAPSHOT_NAME + ".tmp");
+        try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            out.write(header());
+            ByteBuffer buffer = ByteBuffer.allocate(1024 * RECORD_SIZE);
+            for (Scheduler.Review review : reviews.values()) {
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                put(buffer, review);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        try {
+            Files.move(temp.toPath(), snapshot.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        // Log
+        channel.truncate(HEADER_SIZE);
+        channel.position(HEADER_SIZE);
+        channel.force(true);
+    }
+
+    /**
+     * Finishes the pending writes and stops the writer thread.
+     */
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Records
+
+    /**
+     * Reads the records of a file, keeping the last review of each card.
+     *
+     * @param file    the log or snapshot file
+     * @param reviews the reviews, by card id
+     * @throws IOException if an I/O error occurs
+     */
+    private static void replay(File file, Map<Long, Scheduler.Review> reviews) throws IOException {
+        if (!file.isFile()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return;
+            }
+            Scheduler.Grade[] grades = Scheduler.Grade.values();
+            while (buffer.remaining() >= RECORD_SIZE) {
+                long id = buffer.getLong();
+                long time = buffer.getLong();
+                int interval = buffer.getInt();
+                float ease = buffer.getFloat();
+                int repetitions = buffer.getInt();
+                int grade = buffer.get();
+                buffer.position(buffer.position() + 3);
+                if (grade >= 0 && grade < grades.length) {
+                    reviews.put(id, new Scheduler.Review(id, time, grades[grade], interval, ease, repetitions));
+                }
+            }
+        }
+    }
+
+    private static void put(ByteBuffer buffer, Scheduler.Review review) {
+        buffer.putLong(review.id);
+        buffer.putLong(review.time);
+        buffer.putInt(review.interval);
+        buffer.putFloat(review.ease);
+        buffer.putInt(review.repetitions);
+        buffer.put((byte) review.grade.ordinal());
+        buffer.put(new byte[3]);
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.flip();
+        return header;
+    }
+}
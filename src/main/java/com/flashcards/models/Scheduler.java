@@ -0,0 +1,461 @@
+package com.flashcards.models;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaced-repetition scheduler of cards (SM-2).
+ *
+ * <p>
+ * Each card has an ease, an interval (in days) and a due time. Grading
+ * a card moves its due time: a forgotten card comes back in a few
+ * minutes, a remembered one after 1 day, then 6 days, then the last
+ * interval times the ease. The ease goes down on hard answers and up on
+ * easy ones. New cards are due at once.
+ * </p>
+ *
+ * <p>
+ * Cards are kept in an indexed binary heap ordered by due time, so
+ * getting the next due card is O(1), and grading, adding or removing a
+ * card is O(log n). All methods are thread safe.
+ * </p>
+ *
+ * <p>
+ * Each grade gives a {@link Review} with the new schedule of the card,
+ * which can be saved (see {@link ReviewLog}) and restored later.
+ * </p>
+ *
+ * @see {@link Card}
+ */
+public class Scheduler {
+
+    /**
+     * How well a card was remembered.
+     */
+    public enum Grade {
+
+        AGAIN(1), HARD(3), GOOD(4), EASY(5);
+
+        // SM-2 quality (0 to 5)
+        final int quality;
+
+        Grade(int quality) {
+            this.quality = quality;
+        }
+    }
+
+    /**
+     * Schedule of a card after a grade.
+     */
+    public static final class Review {
+
+        final long id;
+        final long time;
+        final Grade grade;
+        final int interval;
+        final float ease;
+        final int repetitions;
+
+        Review(long id, long time, Grade grade, int interval, float ease, int repetitions) {
+            this.id = id;
+            this.time = time;
+            this.grade = grade;
+            this.interval = interval;
+            this.ease = ease;
+            this.repetitions = repetitions;
+        }
+
+        /**
+         * Gets the id of the card (see {@link Scheduler#id(File)}).
+         *
+         * @return the card id
+         */
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * Gets the time of the grade.
+         *
+         * @return the time, in milliseconds
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * Gets the grade.
+         *
+         * @return the grade
+         */
+        public Grade getGrade() {
+            return grade;
+        }
+
+        /**
+         * Gets the new interval.
+         *
+         * @return the interval, in days
+         */
+        public int getInterval() {
+            return interval;
+        }
+
+        /**
+         * Gets the new due time.
+         *
+         * @return the due time, in milliseconds
+         */
+        public long getDue() {
+            return grade.quality < 3 ? time + RELEARN_DELAY : time + TimeUnit.DAYS.toMillis(interval);
+        }
+    }
+
+    // SM-2 ease
+    static final float DEFAULT_EASE = 2.5f;
+    static final float MIN_EASE = 1.3f;
+
+    // Time until a forgotten card is shown again
+    static final long RELEARN_DELAY = TimeUnit.MINUTES.toMillis(10);
+
+    // Cards (by slot)
+    private File[] files = new File[16];
+    private float[] ease = new float[16];
+    private int[] interval = new int[16];
+    private int[] repetitions = new int[16];
+    private long[] due = new long[16];
+
+    // Slots of the files
+    private final Map<File, Integer> slots = new HashMap<>();
+
+    // Restored schedules of cards not added yet (by id)
+    private final Map<Long, Review> restored = new HashMap<>();
+
+    // Free slots (of removed cards)
+    private int[] free = new int[16];
+    private int freeCount;
+    private int slotCount;
+
+    // Heap of slots (by due time, then slot), and heap position of each slot
+    private int[] heap = new int[16];
+    private int[] position = new int[16];
+    private int size;
+
+    /**
+     * Adds a new card, due now. Known cards are skipped.
+     *
+     * @param file the card file
+     * @return <code>true</code> if the card was added
+     */
+    public synchronized boolean add(File file) {
+        File key = key(file);
+        if (slots.containsKey(key)) {
+            return false;
+        }
+        int slot = newSlot(key);
+        heap[size] = slot;
+        position[slot] = size;
+        siftUp(size++);
+        return true;
+    }
+
+    /**
+     * Adds new cards, due now. Known cards are skipped.
+     *
+     * <p>
+     * Many cards are added in O(n), rebuilding the heap once.
+     * </p>
+     *
+     * @param files the card files
+     * @return how many cards were added
+     */
+    public synchronized int addAll(Collection<File> files) {
+        int added = 0;
+        for (File file : files) {
+            File key = key(file);
+            if (!slots.containsKey(key)) {
+                int slot = newSlot(key);
+                heap[size] = slot;
+                position[slot] = size++;
+                added++;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+        return added;
+    }
+
+    /**
+     * Restores the schedules of cards, from their last reviews.
+     *
+     * <p>
+     * Added cards are rescheduled at once; the others when added.
+     * </p>
+     *
+     * @param reviews the last review of each card, by id
+     */
+    public synchronized void restore(Map<Long, Review> reviews) {
+        restored.putAll(reviews);
+        for (Map.Entry<File, Integer> entry : slots.entrySet()) {
+            Review review = restored.remove(id(entry.getKey()));
+            if (review != null) {
+                apply(entry.getValue(), review);
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Removes a card.
+     *
+     * @param file the card file
+     * @return <code>true</code> if the card was scheduled
+     */
+    public synchronized boolean remove(File file) {
+        Integer slot = slots.remove(key(file));
+        if (slot == null) {
+            return false;
+        }
+        int i = position[slot];
+        size--;
+        if (i != size) {
+            int moved = heap[size];
+            heap[i] = moved;
+            position[moved] = i;
+            siftDown(i);
+            siftUp(position[moved]);
+        }
+        files[slot] = null;
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = slot;
+        return true;
+    }
+
+    /**
+     * Gets the next due card.
+     *
+     * @param now the current time, in milliseconds
+     * @return the card due first, or <code>null</code>
+     * if no card is due at <code>now</code>
+     */
+    public synchronized File next(long now) {
+        if (size == 0 || due[heap[0]] > now) {
+            return null;
+        }
+        return files[heap[0]];
+    }
+
+    /**
+     * Gets when the next card is due.
+     *
+     * @return the due time, in milliseconds,
+     * or <code>Long.MAX_VALUE</code> if there are no cards
+     */
+    public synchronized long nextDue() {
+        return size == 0 ? Long.MAX_VALUE : due[heap[0]];
+    }
+
+    /**
+     * Grades a card and schedules it again.
+     *
+     * @param file  the card file (added if not known)
+     * @param grade how well the card was remembered
+     * @param now   the time of the grade, in milliseconds
+     * @return the review, with the new schedule
+     */
+    public synchronized Review grade(File file, Grade grade, long now) {
+        File key = key(file);
+        if (!slots.containsKey(key)) {
+            add(key);
+        }
+        int slot = slots.get(key);
+        int q = grade.quality;
+
+        // Interval
+        if (q < 3) {
+            repetitions[slot] = 0;
+            interval[slot] = 0;
+        } else {
+            repetitions[slot]++;
+            if (repetitions[slot] == 1) {
+                interval[slot] = 1;
+            } else if (repetitions[slot] == 2) {
+                interval[slot] = 6;
+            } else {
+                interval[slot] = Math.round(interval[slot] * ease[slot]);
+            }
+        }
+
+        // Ease
+        ease[slot] = Math.max(MIN_EASE, ease[slot] + 0.1f - (5 - q) * (0.08f + (5 - q) * 0.02f));
+
+        Review review = new Review(id(key), now, grade, interval[slot], ease[slot], repetitions[slot]);
+        due[slot] = review.getDue();
+        siftUp(position[slot]);
+        siftDown(position[slot]);
+        return review;
+    }
+
+    /**
+     * Gets the id of a card, used to save its reviews.
+     *
+     * <p>
+     * The id is a 64-bit FNV-1a hash of the normalized absolute path,
+     * so a renamed card starts over as a new card.
+     * </p>
+     *
+     * @param file the card file
+     * @return the card id
+     */
+    public static long id(File file) {
+        String path = key(file).getPath();
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < path.length(); i++) {
+            hash ^= path.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the key of a card file: its normalized absolute path, so
+     * any path to the same file is the same card.
+     */
+    private static File key(File file) {
+        return file.toPath().toAbsolutePath().normalize().toFile();
+    }
+
+    /**
+     * Gets the ease of a card.
+     *
+     * @param file the card file
+     * @return the ease, or <code>0</code> if not scheduled
+     */
+    public synchronized float getEase(File file) {
+        Integer slot = slots.get(key(file));
+        return slot == null ? 0 : ease[slot];
+    }
+
+    /**
+     * Gets the interval of a card.
+     *
+     * @param file the card file
+     * @return the interval in days (<code>0</code> for new
+     * or forgotten cards), or <code>-1</code> if not scheduled
+     */
+    public synchronized int getInterval(File file) {
+        Integer slot = slots.get(key(file));
+        return slot == null ? -1 : interval[slot];
+    }
+
+    /**
+     * Gets the due time of a card.
+     *
+     * @param file the card file
+     * @return the due time in milliseconds,
+     * or <code>Long.MAX_VALUE</code> if not scheduled
+     */
+    public synchronized long getDue(File file) {
+        Integer slot = slots.get(key(file));
+        return slot == null ? Long.MAX_VALUE : due[slot];
+    }
+
+    /**
+     * Gets the number of scheduled cards.
+     *
+     * @return the number of cards
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    // Heap
+
+    private int newSlot(File file) {
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            slot = slotCount++;
+            if (slot == files.length) {
+                int length = slot * 2;
+                files = Arrays.copyOf(files, length);
+                ease = Arrays.copyOf(ease, length);
+                interval = Arrays.copyOf(interval, length);
+                repetitions = Arrays.copyOf(repetitions, length);
+                due = Arrays.copyOf(due, length);
+                heap = Arrays.copyOf(heap, length);
+                position = Arrays.copyOf(position, length);
+            }
+        }
+        files[slot] = file;
+        ease[slot] = DEFAULT_EASE;
+        interval[slot] = 0;
+        repetitions[slot] = 0;
+        due[slot] = 0;
+        slots.put(file, slot);
+        if (!restored.isEmpty()) {
+            Review review = restored.remove(id(file));
+            if (review != null) {
+                apply(slot, review);
+            }
+        }
+        return slot;
+    }
+
+    private void apply(int slot, Review review) {
+        ease[slot] = review.ease;
+        interval[slot] = review.interval;
+        repetitions[slot] = review.repetitions;
+        due[slot] = review.getDue();
+    }
+
+    private boolean before(int a, int b) {
+        return due[a] < due[b] || (due[a] == due[b] && a < b);
+    }
+
+    private void siftUp(int i) {
+        int slot = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!before(slot, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = slot;
+        position[slot] = i;
+    }
+
+    private void siftDown(int i) {
+        int slot = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], slot)) {
+                break;
+            }
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = slot;
+        position[slot] = i;
+    }
+}
@@ -0,0 +1,490 @@
+package com.flashcards.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory full-text index of card questions and answers.
+ * 
+ * <p>
+ * Text is split in words (letters and digits), normalized (NFKC) and
+ * case folded. Each word keeps a posting list: the sorted ids of the
+ * cards with the word, and how many times. Changed cards get a new id,
+ * and ids of removed cards are skipped until the lists are compacted
+ * (when most ids are removed).
+ * Results are ranked by TF-IDF, and the last query word also matches
+ * as a prefix, to search while typing.
+ * </p>
+ * 
+ * <p>
+ * A folder is indexed by a {@link Loader}, fed with the files as they
+ * are listed. Cards are read without the card cache, with the field
+ * ranges of the folder {@link DeckIndex} (saved when a load completes),
+ * and cards that didn't change since they were indexed (same size and
+ * modification time) aren't read again, so loading the folder again is
+ * cheap.
+ * Changes made while loading are applied when it ends, so a card read
+ * before it changed never replaces its newer version.
+ * </p>
+ * 
+ * <p>
+ * All methods are thread safe.
+ * </p>
+ * 
+ * @see {@link Card}
+ */
+public class SearchIndex {
+
+    // Max words a query prefix expands to
+    private static final int MAX_PREFIX_TERMS = 64;
+
+    // Cards read in parallel at a time (see Loader#addAll)
+    private static final int BLOCK_SIZE = 1024;
+
+    /**
+     * Posting list of a word.
+     */
+    private static final class Postings {
+
+        int[] ids = new int[4];
+        int[] counts = new int[4];
+        int size;
+
+        void add(int id, int count) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            ids[size] = id;
+            counts[size] = count;
+            size++;
+        }
+    }
+
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private File[] files = new File[16];
+    private final BitSet removed = new BitSet();
+    private int nextId;
+    private int removedCount;
+
+    // Size and modification time of the indexed files (by id)
+    private long[] sizes = new long[16];
+    private long[] times = new long[16];
+
+    // Current folder load, and the changes made while loading
+    private Loader loader;
+    private final List<Runnable> queued = new ArrayList<>();
+
+    /**
+     * Bulk load of a folder, fed with its files in chunks.
+     * 
+     * <p>
+     * Chunks are read in parallel and merged in order. A load ends with
+     * {@link #end(boolean)}; a complete load removes the cards whose files
+     * weren't given. Starting a new load cancels this one.
+     * </p>
+     */
+    public final class Loader {
+
+        private final File folder;
+        private final int parallelism;
+        private final Set<String> seen = new HashSet<>();
+        private DeckIndex deckIndex;
+        private final List<DeckIndex.Entry> entries = new ArrayList<>();
+        private ForkJoinPool pool;
+        private volatile boolean cancelled;
+
+        private Loader(File folder, int parallelism) {
+            this.folder = folder;
+            this.parallelism = parallelism;
+        }
+
+        /**
+         * Indexes files of the folder (only the changed ones are read).
+         * Does nothing if the load was cancelled.
+         * 
+         * @param chunk the card files
+         */
+        public void addAll(List<File> chunk) {
+            if (cancelled) {
+                return;
+            }
+            if (pool == null) {
+                deckIndex = DeckIndex.load(folder);
+                pool = new ForkJoinPool(Math.max(1, parallelism));
+            }
+            File[] files = chunk.toArray(File[]::new);
+            for (int start = 0; start < files.length && !cancelled; start += BLOCK_SIZE) {
+                int from = start;
+                int to = Math.min(files.length, start + BLOCK_SIZE);
+
+                // Read and split the changed cards (parallel)
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                Map<String, Integer>[] words = new Map[to - from];
+                long[][] stamps = new long[to - from][];
+                boolean[] read = new boolean[to - from];
+                DeckIndex.Entry[] blockEntries = new DeckIndex.Entry[to - from];
+                try {
+                    pool.submit(() -> IntStream.range(from, to).parallel().forEach(i -> {
+                        long[] stamp = stamp(files[i]);
+                        stamps[i - from] = stamp;
+                        if (stamp == null) {
+                            return;
+                        }
+                        DeckIndex.Entry entry = deckIndex.get(files[i].getName());
+                        if (isIndexed(files[i], stamp)) {
+                            boolean current = entry != null && entry.size == stamp[0] && entry.modified == stamp[1];
+                            blockEntries[i - from] = current ? entry : null;
+                            return;
+                        }
+                        blockEntries[i - from] = entry;
+                        Card card = Model.getCard(files[i], blockEntries, i - from);
+                        if (card != null) {
+                            words[i - from] = count(card.getQuestion(), card.getAnswer());
+                        }
+                        read[i - from] = true;
+                    })).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                    return;
+                }
+
+                // Merge (in order, to keep posting lists sorted)
+                synchronized (SearchIndex.this) {
+                    if (cancelled) {
+                        return;
+                    }
+                    for (int i = from; i < to; i++) {
+                        if (stamps[i - from] == null || (read[i - from] && words[i - from] == null)) {
+                            continue; // Unreadable: removed at the end
+                        }
+                        seen.add(key(files[i]));
+                        if (blockEntries[i - from] != null) {
+                            entries.add(blockEntries[i - from]);
+                        }
+                        if (words[i - from] != null) {
+                            add(files[i], words[i - from], stamps[i - from]);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Ends the load, and applies the changes made while loading.
+         * 
+         * @param complete <code>true</code> if all files of the folder
+         * were given (cards of other files are removed)
+         */
+        public void end(boolean complete) {
+            if (pool != null) {
+                pool.shutdown();
+            }
+
+            // Save the folder index (for the next time the folder is read)
+            if (complete && !cancelled && deckIndex != null) {
+                deckIndex.update(entries);
+            }
+            synchronized (SearchIndex.this) {
+                if (loader != this) {
+                    return;
+                }
+                if (complete && !cancelled) {
+                    for (String key : new ArrayList<>(ids.keySet())) {
+                        if (!seen.contains(key)) {
+                            drop(key);
+                        }
+                    }
+                }
+                loader = null;
+                queued.forEach(Runnable::run);
+                queued.clear();
+            }
+        }
+    }
+
+    /**
+     * Starts loading a folder, cancelling the current load.
+     * 
+     * @param folder      the cards folder
+     * @param parallelism the max number of files read at the same time
+     * @return the load, to feed with the folder files
+     */
+    public synchronized Loader load(File folder, int parallelism) {
+        if (loader != null) {
+            loader.cancelled = true;
+        }
+        loader = new Loader(folder, parallelism);
+        return loader;
+    }
+
+    /**
+     * Indexes a card, replacing its previous version.
+     * 
+     * @param card the card
+     */
+    public void update(Card card) {
+        File file = card.getFile();
+        Map<String, Integer> words = count(card.getQuestion(), card.getAnswer());
+        long[] stamp = stamp(file);
+        long[] fileStamp = stamp != null ? stamp : new long[] { -1, -1 };
+        synchronized (this) {
+            if (loader != null) {
+                queued.add(() -> add(file, words, fileStamp));
+            } else {
+                add(file, words, fileStamp);
+            }
+        }
+    }
+
+    /**
+     * Removes a card from the index.
+     * 
+     * @param file the card file
+     */
+    public synchronized void remove(File file) {
+        if (loader != null) {
+            queued.add(() -> drop(key(file)));
+        } else {
+            drop(key(file));
+        }
+    }
+
+    /**
+     * Searches cards by words in question or answer.
+     * 
+     * @param query the words to search
+     * @param limit the max number of results
+     * @return the card files, best matches first
+     */
+    public synchronized List<File> search(String query, int limit) {
+        List<String> words = split(query);
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Score (TF-IDF)
+        float[] scores = new float[nextId];
+        int live = nextId - removedCount;
+        for (int w = 0; w < words.size(); w++) {
+            String word = words.get(w);
+            List<Postings> lists = new ArrayList<>();
+            if (w == words.size() - 1) {
+                for (Postings postings : terms.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                    lists.add(postings);
+                    if (lists.size() == MAX_PREFIX_TERMS) {
+                        break;
+                    }
+                }
+            } else if (terms.containsKey(word)) {
+                lists.add(terms.get(word));
+            }
+            for (Postings postings : lists) {
+                float idf = (float) Math.log(1 + (double) live / postings.size);
+                for (int i = 0; i < postings.size; i++) {
+                    scores[postings.ids[i]] += postings.counts[i] * idf;
+                }
+            }
+        }
+
+        // Best matches
+        Integer[] matches = IntStream.range(0, nextId)
+                .filter(id -> scores[id] > 0 && !removed.get(id))
+                .boxed().toArray(Integer[]::new);
+        Arrays.sort(matches, (a, b) -> Float.compare(scores[b], scores[a]));
+        List<File> results = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, matches.length); i++) {
+            results.add(files[matches[i]]);
+        }
+        return results;
+    }
+
+    /**
+     * Gets the number of indexed cards.
+     * 
+     * @return the number of cards
+     */
+    public synchronized int size() {
+        return ids.size();
+    }
+
+    /**
+     * Adds the words of a card, with a new id.
+     * 
+     * @param file  the card file
+     * @param words the card words, with counts
+     * @param stamp the file size and modification time
+     */
+    private synchronized void add(File file, Map<String, Integer> words, long[] stamp) {
+        String key = key(file);
+        drop(key);
+
+        int id = nextId++;
+        if (id == files.length) {
+            files = Arrays.copyOf(files, id * 2);
+            sizes = Arrays.copyOf(sizes, id * 2);
+            times = Arrays.copyOf(times, id * 2);
+        }
+        files[id] = file;
+        sizes[id] = stamp[0];
+        times[id] = stamp[1];
+        ids.put(key, id);
+        words.forEach((word, count) -> terms.computeIfAbsent(word, w -> new Postings()).add(id, count));
+    }
+
+    /**
+     * Removes a card id (its postings are skipped until compacted).
+     * 
+     * @param key the card file key
+     */
+    private void drop(String key) {
+        Integer id = ids.remove(key);
+        if (id != null) {
+            removed.set(id);
+            removedCount++;
+            if (removedCount > 1024 && removedCount > (nextId - removedCount)) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Checks if a card file is indexed, unchanged.
+     */
+    private synchronized boolean isIndexed(File file, long[] stamp) {
+        Integer id = ids.get(key(file));
+        return id != null && sizes[id] == stamp[0] && times[id] == stamp[1];
+    }
+
+    /**
+     * Gets the size and modification time (nanoseconds) of a file.
+     * 
+     * @return the stamp, or <code>null</code> if the file can't be read
+     */
+    private static long[] stamp(File file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            return new long[] { attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS) };
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Drops removed ids from the posting lists, and renumbers
+     * the cards left (in the same order, so lists stay sorted).
+     */
+    private void compact() {
+
+        // New ids
+        int[] newIds = new int[nextId];
+        int count = 0;
+        for (int id = 0; id < nextId; id++) {
+            if (removed.get(id)) {
+                newIds[id] = -1;
+            } else {
+                newIds[id] = count;
+                sizes[count] = sizes[id];
+                times[count] = times[id];
+                files[count++] = files[id];
+            }
+        }
+        Arrays.fill(files, count, nextId, null);
+        ids.replaceAll((key, id) -> newIds[id]);
+        nextId = count;
+        removed.clear();
+        removedCount = 0;
+
+        // Posting lists
+        Iterator<Postings> iterator = terms.values().iterator();
+        while (iterator.hasNext()) {
+            Postings postings = iterator.next();
+            int k = 0;
+            for (int i = 0; i < postings.size; i++) {
+                int id = newIds[postings.ids[i]];
+                if (id >= 0) {
+                    postings.ids[k] = id;
+                    postings.counts[k] = postings.counts[i];
+                    k++;
+                }
+            }
+            postings.size = k;
+            if (k == 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Counts the words of question and answer.
+     * 
+     * @param question the question
+     * @param answer   the answer
+     * @return the words, with counts
+     */
+    private static Map<String, Integer> count(String question, String answer) {
+        Map<String, Integer> words = new HashMap<>();
+        for (String word : split(question)) {
+            words.merge(word, 1, Integer::sum);
+        }
+        for (String word : split(answer)) {
+            words.merge(word, 1, Integer::sum);
+        }
+        return words;
+    }
+
+    /**
+     * Splits text in normalized, case folded words.
+     * 
+     * @param text the text
+     * @return the words
+     */
+    static List<String> split(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC)
+                .toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < normalized.length(); ) {
+            int c = normalized.codePointAt(i);
+            boolean letter = Character.isLetterOrDigit(c);
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                words.add(normalized.substring(start, i));
+                start = -1;
+            }
+            i += Character.charCount(c);
+        }
+        if (start >= 0) {
+            words.add(normalized.substring(start));
+        }
+        return words;
+    }
+
+    private static String key(File file) {
+        return file.toPath().toAbsolutePath().normalize().toString();
+    }
+}
@@ -1,14 +1,22 @@
 package com.flashcards.views;
 
 import java.awt.event.ActionEvent;
+import java.io.File;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
 
 import com.flashcards.controllers.Controller;
+import com.flashcards.controllers.EventBus;
+import com.flashcards.controllers.Exporter;
+import com.flashcards.controllers.Importer;
 import com.flashcards.models.Card;
+import com.flashcards.models.Model;
 
 /**
  * View representing the menu bar.
@@ -23,6 +31,9 @@ import com.flashcards.models.Card;
  *     <li>New card
  *     <li>Open card
  *     <li>Save card
+ *     <li>Import cards
+ *     <li>Export cards
+ *     <li>Autosave
  * </ul>
  * </p>
  * 
@@ -31,6 +42,7 @@ import com.flashcards.models.Card;
  * <ul>
  *     <li>Side panel
  *     <li>Editor mode
+ *     <li>Study mode
  * </ul>
  * </p>
  */
@@ -44,11 +56,15 @@ class AppMenuBar extends JMenuBar implements View {
     private JMenuItem newItem;
     private JMenuItem openItem;
     private JMenuItem saveItem;
+    private JMenuItem importItem;
+    private JMenuItem exportItem;
+    private JCheckBoxMenuItem autosaveItem;
 
     // View menu
     private JMenu viewMenu;
     private JCheckBoxMenuItem sidePaneItem;
     private JCheckBoxMenuItem editorModeItem;
+    private JCheckBoxMenuItem studyModeItem;
 
     /**
      * Initialize this view.
@@ -67,9 +83,13 @@ class AppMenuBar extends JMenuBar implements View {
         newItem = new JMenuItem();
         openItem = new JMenuItem();
         saveItem = new JMenuItem();
+        importItem = new JMenuItem();
+        exportItem = new JMenuItem();
+        autosaveItem = new JCheckBoxMenuItem();
         viewMenu = new JMenu();
         sidePaneItem = new JCheckBoxMenuItem();
         editorModeItem = new JCheckBoxMenuItem();
+        studyModeItem = new JCheckBoxMenuItem();
 
         // Make view
         style();
@@ -86,12 +106,16 @@ class AppMenuBar extends JMenuBar implements View {
         newItem.setText("New card");
         openItem.setText("Open card");
         saveItem.setText("Save card");
+        importItem.setText("Import cards");
+        exportItem.setText("Export cards");
+        autosaveItem.setText("Autosave");
 
         // View menu
         viewMenu.setText("View");
 
         sidePaneItem.setText("Side panel");
         editorModeItem.setText("Editor mode");
+        studyModeItem.setText("Study mode");
     }
 
     @Override
@@ -105,10 +129,14 @@ class AppMenuBar extends JMenuBar implements View {
         fileMenu.add(newItem);
         fileMenu.add(openItem);
         fileMenu.add(saveItem);
+        fileMenu.add(importItem);
+        fileMenu.add(exportItem);
+        fileMenu.add(autosaveItem);
 
         // View menu
         viewMenu.add(sidePaneItem);
         viewMenu.add(editorModeItem);
+        viewMenu.add(studyModeItem);
     }
 
     @Override
@@ -141,11 +169,31 @@ class AppMenuBar extends JMenuBar implements View {
         if (editorModeItem.isSelected() != b) {
             editorModeItem.setSelected(b);
         }
+        if (b && studyModeItem.isSelected()) {
+            setStudyModeSelected(false);
+        }
         gui.cardPanel.setEditorModeVisible(editorModeItem.isSelected());
         gui.cardPanel.resetDividerLocation();
         gui.resetMinimumSize();
     }
 
+    /**
+     * Enables or disables <code>Study mode</code>.
+     * This method change Study mode Check box, leaves Editor mode
+     * and starts or stops studying in Card panel.
+     * 
+     * @param b the state to set
+     */
+    void setStudyModeSelected(boolean b) {
+        if (studyModeItem.isSelected() != b) {
+            studyModeItem.setSelected(b);
+        }
+        if (b && editorModeItem.isSelected()) {
+            setEditorModeSelected(false);
+        }
+        gui.cardPanel.setStudyModeVisible(studyModeItem.isSelected());
+    }
+
     @Override
     public void addActions() {
 
@@ -158,7 +206,7 @@ class AppMenuBar extends JMenuBar implements View {
      * Adds funcionality for <code>Card</code> files.
      * 
      * <p>
-     * Actions: New, Open and Save.
+     * Actions: New, Open, Save, Import, Export and Autosave.
      * </p>
      */
     private void addFileMenuActions() {
@@ -166,7 +214,6 @@ class AppMenuBar extends JMenuBar implements View {
         // New card
         newItem.addActionListener((ActionEvent e) -> {
             gui.cardPanel.setCard(new Card());
-            gui.sidePanel.refreshCardsList();
         });
 
         // Open card
@@ -174,15 +221,112 @@ class AppMenuBar extends JMenuBar implements View {
             Card card = Controller.openCard(gui);
             if (card != null) {
                 gui.cardPanel.setCard(card);
-                gui.sidePanel.refreshCardsList();
+                gui.events.publish(EventBus.CARD_CHANGED, card.getFile());
             }
         });
 
         // Save card
         saveItem.addActionListener((ActionEvent e) -> {
-            Controller.saveCard(gui.cardPanel.getCard(), gui);
-            gui.sidePanel.refreshCardsList();
+            File file = Controller.saveCard(gui.cardPanel.getCard(), gui);
+            if (file != null) {
+                gui.events.publish(EventBus.CARD_CHANGED, file);
+            }
         });
+
+        // Import cards
+        importItem.addActionListener((ActionEvent e) -> {
+            File source = Controller.chooseImportFile(gui);
+            if (source != null) {
+                importCards(source);
+            }
+        });
+
+        // Export cards
+        exportItem.addActionListener((ActionEvent e) -> {
+            File target = Controller.chooseExportFile(gui);
+            if (target != null) {
+                exportCards(target);
+            }
+        });
+
+        // Autosave
+        autosaveItem.addActionListener((ActionEvent e) -> {
+            gui.cardPanel.setAutosave(autosaveItem.isSelected());
+        });
+    }
+
+    /**
+     * Imports cards to the cards folder in background, then shows the result.
+     * 
+     * @param source the CSV, TSV or Anki text file
+     */
+    private void importCards(File source) {
+        Importer.Format format = Importer.Format.of(source);
+        if (format == null) {
+            JOptionPane.showMessageDialog(gui, "Not a .csv, .tsv or Anki .txt file: " + source.getName(),
+                    "Import cards", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        boolean header = format != Importer.Format.ANKI && JOptionPane.showConfirmDialog(gui,
+                "Is the first row column names?", "Import cards", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
+
+        File folder = Model.touchDirectory(Model.CARDS_FOLDER);
+        importItem.setEnabled(false);
+        new SwingWorker<Importer.Result, Void>() {
+
+            @Override
+            protected Importer.Result doInBackground() throws Exception {
+                return Importer.importFile(source, format, folder, header);
+            }
+
+            @Override
+            protected void done() {
+                importItem.setEnabled(true);
+                gui.events.publish(EventBus.DECK_CHANGED, folder);
+                try {
+                    JOptionPane.showMessageDialog(gui, get().toString(), "Import cards",
+                            JOptionPane.INFORMATION_MESSAGE);
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(gui, e.getCause().getMessage(), "Import cards",
+                            JOptionPane.ERROR_MESSAGE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Exports the cards folder in background, then shows the result.
+     * 
+     * @param target the tar, CSV or JSON Lines file
+     */
+    private void exportCards(File target) {
+        File folder = Model.touchDirectory(Model.CARDS_FOLDER);
+        exportItem.setEnabled(false);
+        new SwingWorker<Exporter.Result, Void>() {
+
+            @Override
+            protected Exporter.Result doInBackground() throws Exception {
+                return Exporter.exportDeck(folder, target, Exporter.Format.of(target));
+            }
+
+            @Override
+            protected void done() {
+                exportItem.setEnabled(true);
+                try {
+                    JOptionPane.showMessageDialog(gui, get().toString(), "Export cards",
+                            JOptionPane.INFORMATION_MESSAGE);
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(gui, e.getCause().getMessage(), "Export cards",
+                            JOptionPane.ERROR_MESSAGE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
     }
 
     /**
@@ -192,6 +336,7 @@ class AppMenuBar extends JMenuBar implements View {
      * <ul>
      *     <li>Show/hide side panel
      *     <li>Enter/exit editor mode
+     *     <li>Enter/exit study mode
      * </ul>
      */
     private void addViewMenuActions() {
@@ -205,6 +350,11 @@ class AppMenuBar extends JMenuBar implements View {
         editorModeItem.addActionListener((ActionEvent e) -> {
             setEditorModeSelected(editorModeItem.isSelected());
         });
+
+        // Enter/exit study mode
+        studyModeItem.addActionListener((ActionEvent e) -> {
+            setStudyModeSelected(studyModeItem.isSelected());
+        });
     }
 
 }
@@ -0,0 +1,214 @@
+package com.flashcards.views;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+import javax.swing.AbstractListModel;
+
+import com.flashcards.models.Card;
+
+/**
+ * List model of <code>Cards list</code>, sorted by file name.
+ * 
+ * <p>
+ * Cards are kept in a sorted array (plus their file names, to search
+ * without allocating), so each row costs two references. Changes fire
+ * interval events only for the rows that changed, instead of replacing
+ * the whole list, so the list selection follows the cards.
+ * </p>
+ * 
+ * @see {@link com.flashcards.views.SidePanel}
+ */
+class CardListModel extends AbstractListModel<Card> {
+
+    private static final Comparator<Card> BY_NAME =
+            Comparator.comparing((Card card) -> card.getFile().getName());
+
+    private Card[] cards = new Card[16];
+    private String[] names = new String[16];
+    private int size;
+
+    // Number of changes (to know if a snapshot is outdated)
+    private int version;
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public Card getElementAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return cards[index];
+    }
+
+    /**
+     * Gets the number of changes made to this model.
+     * 
+     * @return the version
+     */
+    int getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets a copy of the cards.
+     * 
+     * @return the cards, sorted by file name
+     */
+    Card[] toArray() {
+        return Arrays.copyOf(cards, size);
+    }
+
+    /**
+     * Binary search of a card file.
+     * 
+     * @param file the card file
+     * @return the card index, or <code>(-(insertion point) - 1)</code>
+     * if it isn't there
+     */
+    int indexOf(File file) {
+        return Arrays.binarySearch(names, 0, size, file.getName());
+    }
+
+    /**
+     * Adds many cards at once, merging them into the sorted cards.
+     * Cards already there are replaced.
+     * 
+     * @param newCards the cards to add (any order)
+     */
+    void addAll(Collection<Card> newCards) {
+        version++;
+        if (newCards.isEmpty()) {
+            return;
+        }
+        Card[] added = newCards.toArray(new Card[] {});
+        Arrays.sort(added, BY_NAME);
+
+        // Replace existing cards (and drop duplicates)
+        int count = 0;
+        for (int j = 0; j < added.length; j++) {
+            String name = added[j].getFile().getName();
+            if (count > 0 && name.equals(added[count - 1].getFile().getName())) {
+                added[count - 1] = added[j];
+                continue;
+            }
+            int i = Arrays.binarySearch(names, 0, size, name);
+            if (i >= 0) {
+                cards[i] = added[j];
+                fireContentsChanged(this, i, i);
+            } else {
+                added[count++] = added[j];
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+
+        // Merge (from the end)
+        ensureCapacity(size + count);
+        int[] positions = new int[count];
+        int i = size - 1;
+        int j = count - 1;
+        for (int k = size + count - 1; j >= 0; k--) {
+            if (i >= 0 && names[i].compareTo(added[j].getFile().getName()) > 0) {
+                cards[k] = cards[i];
+                names[k] = names[i];
+                i--;
+            } else {
+                cards[k] = added[j];
+                names[k] = added[j].getFile().getName();
+                positions[j] = k;
+                j--;
+            }
+        }
+        size += count;
+
+        // Events (one for each run of added rows, in ascending order)
+        int start = 0;
+        for (int k = 1; k <= count; k++) {
+            if (k == count || positions[k] != positions[k - 1] + 1) {
+                fireIntervalAdded(this, positions[start], positions[k - 1]);
+                start = k;
+            }
+        }
+    }
+
+    /**
+     * Removes the cards of many files at once.
+     * Files not there are ignored.
+     * 
+     * @param files the card files
+     */
+    void removeAll(Collection<File> files) {
+        version++;
+        boolean[] removed = new boolean[size];
+        boolean any = false;
+        for (File file : files) {
+            int i = indexOf(file);
+            if (i >= 0) {
+                removed[i] = true;
+                any = true;
+            }
+        }
+        if (!any) {
+            return;
+        }
+
+        // Compact
+        int oldSize = size;
+        int k = 0;
+        for (int i = 0; i < oldSize; i++) {
+            if (!removed[i]) {
+                cards[k] = cards[i];
+                names[k] = names[i];
+                k++;
+            }
+        }
+        Arrays.fill(cards, k, oldSize, null);
+        Arrays.fill(names, k, oldSize, null);
+        size = k;
+
+        // Events (one for each run of removed rows, from the end)
+        int end = oldSize - 1;
+        while (end >= 0) {
+            if (!removed[end]) {
+                end--;
+                continue;
+            }
+            int start = end;
+            while (start > 0 && removed[start - 1]) {
+                start--;
+            }
+            fireIntervalRemoved(this, start, end);
+            end = start - 1;
+        }
+    }
+
+    /**
+     * Removes all cards.
+     */
+    void clear() {
+        version++;
+        if (size == 0) {
+            return;
+        }
+        int last = size - 1;
+        cards = new Card[16];
+        names = new String[16];
+        size = 0;
+        fireIntervalRemoved(this, 0, last);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > cards.length) {
+            int length = Math.max(capacity, cards.length + (cards.length >> 1));
+            cards = Arrays.copyOf(cards, length);
+            names = Arrays.copyOf(names, length);
+        }
+    }
+}
@@ -3,11 +3,17 @@ package com.flashcards.views;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.FlowLayout;
 import java.awt.Font;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
@@ -16,9 +22,18 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTextArea;
+import javax.swing.ListModel;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.plaf.basic.BasicSplitPaneUI;
 
+import com.flashcards.controllers.AutoSaver;
+import com.flashcards.controllers.CardPrefetcher;
 import com.flashcards.models.Card;
+import com.flashcards.models.ReviewLog;
+import com.flashcards.models.Scheduler;
 
 /**
  * View representing Card Panel.
@@ -29,6 +44,11 @@ import com.flashcards.models.Card;
  * <code>Next</code> and <code>previous</code> card.
  * </p>
  * 
+ * <p>
+ * In study mode, due cards are shown one after the other, and each one
+ * is graded after flipping it. Grades are saved in the review log.
+ * </p>
+ * 
  * @see {@link com.flashcards.models.Card}
  */
 public class CardPanel extends JPanel implements View {
@@ -39,11 +59,34 @@ public class CardPanel extends JPanel implements View {
     // Current card
     private Card currentCard;
 
+    // Cards around the current one in the list, read in background
+    private static final int PREFETCH_RADIUS = Integer.getInteger("flashcards.prefetchRadius", 8);
+    private CardPrefetcher prefetcher;
+
+    // Autosave (edits in a burst are saved once, after the delay)
+    private static final int AUTOSAVE_DELAY = 500;
+    private boolean autosave;
+    private boolean settingCard;
+    private Timer autosaveTimer;
+    private AutoSaver autoSaver;
+
     // Main panel (panel with card)
     private JPanel mainPanel;
 
+    // Study mode
+    private Scheduler scheduler;
+    private boolean studying;
+    private ReviewLog reviewLog;
+
+    // Saved reviews, read in background (null once restored)
+    private SwingWorker<Map<Long, Scheduler.Review>, Void> reviewsReader;
+
     // Buttons to play Quiz Card
+    private JPanel buttonsPanel;
+    private JButton previousButton;
     private JButton flipButton;
+    private JButton nextButton;
+    private JButton[] gradeButtons;
 
     // Question
     private JPanel qPanel;
@@ -75,7 +118,17 @@ public class CardPanel extends JPanel implements View {
         this.gui = gui;
         currentCard = new Card();
         mainPanel = new JPanel();
+        scheduler = new Scheduler();
+        reviewLog = ReviewLog.open();
+        prefetcher = new CardPrefetcher(PREFETCH_RADIUS);
+        buttonsPanel = new JPanel();
+        previousButton = new JButton();
         flipButton = new JButton();
+        nextButton = new JButton();
+        gradeButtons = new JButton[Scheduler.Grade.values().length];
+        for (int i = 0; i < gradeButtons.length; i++) {
+            gradeButtons[i] = new JButton();
+        }
         qPanel = new JPanel();
         qLabel = new JLabel();
         qTextArea = new JTextArea();
@@ -85,11 +138,44 @@ public class CardPanel extends JPanel implements View {
         aLabel = new JLabel();
         aTextArea = new JTextArea();
         aScrollPane = new JScrollPane();
+        autosaveTimer = new Timer(AUTOSAVE_DELAY, (ActionEvent e) -> autosave());
+        autoSaver = new AutoSaver();
 
         // Make view
         style();
         build();
         addActions();
+
+        // Read saved reviews
+        reviewsReader = new SwingWorker<Map<Long, Scheduler.Review>, Void>() {
+
+            @Override
+            protected Map<Long, Scheduler.Review> doInBackground() throws Exception {
+                return reviewLog.replay();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    scheduler.restore(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                }
+                reviewsReader = null;
+                for (JButton gradeButton : gradeButtons) {
+                    gradeButton.setEnabled(true);
+                }
+                if (studying) {
+                    startStudying();
+                }
+            }
+        };
+        for (JButton gradeButton : gradeButtons) {
+            gradeButton.setEnabled(false);
+        }
+        reviewsReader.execute();
     }
 
     @Override
@@ -105,7 +191,15 @@ public class CardPanel extends JPanel implements View {
         splitPane.setDividerSize(10);
 
         // Buttons
+        buttonsPanel.setLayout(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        previousButton.setText("Previous");
         flipButton.setText("Flip card");
+        nextButton.setText("Next");
+        for (Scheduler.Grade grade : Scheduler.Grade.values()) {
+            String name = grade.name();
+            gradeButtons[grade.ordinal()].setText(name.charAt(0) + name.substring(1).toLowerCase());
+            gradeButtons[grade.ordinal()].setVisible(false);
+        }
 
         // ---------- Question ----------
         qPanel.setLayout(new BorderLayout(0, 10));
@@ -139,7 +233,15 @@ public class CardPanel extends JPanel implements View {
 
         // Card panel
         add(mainPanel, BorderLayout.CENTER);
-        add(flipButton, BorderLayout.SOUTH);
+        add(buttonsPanel, BorderLayout.SOUTH);
+
+        // Buttons
+        buttonsPanel.add(previousButton);
+        buttonsPanel.add(flipButton);
+        buttonsPanel.add(nextButton);
+        for (JButton gradeButton : gradeButtons) {
+            buttonsPanel.add(gradeButton);
+        }
 
         // Main panel
         mainPanel.add(splitPane);
@@ -162,12 +264,37 @@ public class CardPanel extends JPanel implements View {
     /**
      * Sets the card which is current being displayed.
      * 
+     * <p>
+     * The previous card is released (unless prefetched), so only the
+     * displayed cards keep their text in memory.
+     * </p>
+     * 
      * @param card the card to set to current
      */
     void setCard(Card card) {
+        autosaveNow();
+        if (currentCard != card && !prefetcher.contains(currentCard)) {
+            currentCard.release();
+        }
         currentCard = card;
+        settingCard = true;
         qTextArea.setText(currentCard.getQuestion());
         aTextArea.setText(currentCard.getAnswer());
+        settingCard = false;
+    }
+
+    /**
+     * Sets the current card from a list, and reads the cards
+     * around it in background, for next and previous.
+     * 
+     * @param list  the list of cards
+     * @param index the position of the card
+     */
+    void setCard(ListModel<Card> list, int index) {
+
+        // Shown first, so the window never releases the displayed card
+        setCard(list.getElementAt(index));
+        prefetcher.center(list, index);
     }
 
     /**
@@ -179,6 +306,138 @@ public class CardPanel extends JPanel implements View {
         return currentCard;
     }
 
+    /**
+     * Enables or disables autosave.
+     * 
+     * <p>
+     * With autosave, changes to a card that already has a file are saved
+     * in background, a moment after the user stops typing.
+     * </p>
+     * 
+     * @param flag the autosave state to set
+     */
+    void setAutosave(boolean flag) {
+        autosave = flag;
+        if (!flag) {
+            autosaveTimer.stop();
+        }
+    }
+
+    /**
+     * Starts (or restarts) the autosave delay after an edit.
+     */
+    private void edited() {
+        if (autosave && !settingCard && currentCard.getFile() != null) {
+            autosaveTimer.restart();
+        }
+    }
+
+    /**
+     * Saves the current card now, if an autosave is waiting.
+     */
+    void autosaveNow() {
+        if (autosaveTimer.isRunning()) {
+            autosaveTimer.stop();
+            autosave();
+        }
+    }
+
+    /**
+     * Keeps the edits in the current card, and hands a copy
+     * of it to the background writer.
+     * 
+     * <p>
+     * The current card may be shown again later (from the prefetched
+     * cards or a search result), so it must have the edited text, not
+     * the text it was opened with.
+     * </p>
+     */
+    private void autosave() {
+        autosaveTimer.stop();
+        if (currentCard.getFile() != null) {
+            String question = qTextArea.getText();
+            String answer = aTextArea.getText();
+            currentCard.setQuestion(question);
+            currentCard.setAnswer(answer);
+            autoSaver.save(new Card(currentCard.getFile(), question, answer));
+        }
+    }
+
+    /**
+     * Starts or stops study mode.
+     * 
+     * <p>
+     * Starting adds the listed cards not scheduled yet, with their
+     * saved schedules (or due at once), and shows the first due card.
+     * If the saved schedules are still being read, studying starts when
+     * they are. Editor mode must be off.
+     * </p>
+     * 
+     * @param flag the study mode state to set
+     */
+    void setStudyModeVisible(boolean flag) {
+        studying = flag;
+        previousButton.setVisible(!flag);
+        nextButton.setVisible(!flag);
+        for (JButton gradeButton : gradeButtons) {
+            gradeButton.setVisible(flag);
+        }
+        if (flag && reviewsReader == null) {
+            startStudying();
+        }
+    }
+
+    /**
+     * Schedules the listed cards and shows the first due card.
+     */
+    private void startStudying() {
+        List<File> files = new ArrayList<>();
+        for (Card card : gui.sidePanel.getCards()) {
+            files.add(card.getFile());
+        }
+        scheduler.addAll(files);
+        nextStudyCard();
+    }
+
+    /**
+     * Grades the current card, saves the review and shows the next due card.
+     * 
+     * @param grade how well the card was remembered
+     */
+    private void grade(Scheduler.Grade grade) {
+        if (studying && reviewsReader == null && currentCard.getFile() != null) {
+            reviewLog.append(scheduler.grade(currentCard.getFile(), grade, System.currentTimeMillis()));
+            nextStudyCard();
+        }
+    }
+
+    /**
+     * Shows the next due card, question side.
+     * 
+     * <p>
+     * Cards whose file was deleted are unscheduled.
+     * </p>
+     */
+    private void nextStudyCard() {
+        long now = System.currentTimeMillis();
+        File file = scheduler.next(now);
+        while (file != null && !file.isFile()) {
+            scheduler.remove(file);
+            file = scheduler.next(now);
+        }
+
+        if (file != null) {
+            setCard(new Card(file));
+        } else {
+            setCard(new Card(null, "No cards due.", ""));
+        }
+        for (JButton gradeButton : gradeButtons) {
+            gradeButton.setEnabled(file != null);
+        }
+        qPanel.setVisible(true);
+        aPanel.setVisible(false);
+    }
+
     /**
      * Sets divider location to midle.
      */
@@ -245,6 +504,27 @@ public class CardPanel extends JPanel implements View {
         // Actions
         addButtonActions();
         addSplitPaneActions();
+        addEditActions();
+    }
+
+    /**
+     * Adds edit actions to question and answer, for autosave.
+     */
+    private void addEditActions() {
+
+        DocumentListener listener = new DocumentListener() {
+
+            @Override
+            public void insertUpdate(DocumentEvent e) { edited(); }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) { edited(); }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {}
+        };
+        qTextArea.getDocument().addDocumentListener(listener);
+        aTextArea.getDocument().addDocumentListener(listener);
     }
 
     /**
@@ -252,11 +532,20 @@ public class CardPanel extends JPanel implements View {
      */
     private void addButtonActions() {
 
+        // Previous/next card in the list
+        previousButton.addActionListener((ActionEvent e) -> gui.sidePanel.openRelativeCard(-1));
+        nextButton.addActionListener((ActionEvent e) -> gui.sidePanel.openRelativeCard(1));
+
         // Flip question/answer
         flipButton.addActionListener((ActionEvent e) -> {
             qPanel.setVisible(!qPanel.isVisible());
             aPanel.setVisible(!aPanel.isVisible());
         });
+
+        // Grade (study mode)
+        for (Scheduler.Grade grade : Scheduler.Grade.values()) {
+            gradeButtons[grade.ordinal()].addActionListener((ActionEvent e) -> grade(grade));
+        }
     }
 
     /**
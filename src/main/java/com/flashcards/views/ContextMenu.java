@@ -1,13 +1,19 @@
 package com.flashcards.views;
 
 import java.awt.event.ActionEvent;
+import java.io.File;
+import java.util.List;
 
+import javax.swing.JFileChooser;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPopupMenu;
 
+import com.flashcards.controllers.BulkOperations;
 import com.flashcards.controllers.Controller;
+import com.flashcards.controllers.EventBus;
 import com.flashcards.models.Card;
+import com.flashcards.models.Model;
 
 /**
  * View representing the context menu when right click on
@@ -22,6 +28,8 @@ class ContextMenu extends JPopupMenu implements View {
 
     // Context menu item
     private JMenuItem renameItem;
+    private JMenuItem duplicateItem;
+    private JMenuItem moveItem;
     private JMenuItem deleteItem;
 
     /**
@@ -38,6 +46,8 @@ class ContextMenu extends JPopupMenu implements View {
         // Init
         this.gui = gui;
         renameItem = new JMenuItem();
+        duplicateItem = new JMenuItem();
+        moveItem = new JMenuItem();
         deleteItem = new JMenuItem();
 
         // Make view
@@ -52,6 +62,12 @@ class ContextMenu extends JPopupMenu implements View {
         // Rename
         renameItem.setText("Rename card");
 
+        // Duplicate
+        duplicateItem.setText("Duplicate card");
+
+        // Move
+        moveItem.setText("Move card to folder...");
+
         // Delete
         deleteItem.setText("Delete card");
     }
@@ -62,6 +78,12 @@ class ContextMenu extends JPopupMenu implements View {
         // Rename
         add(renameItem);
 
+        // Duplicate
+        add(duplicateItem);
+
+        // Move
+        add(moveItem);
+
         // Delete
         add(deleteItem);
     }
@@ -79,16 +101,28 @@ class ContextMenu extends JPopupMenu implements View {
     /**
      * Adds behaviors to context menu buttons.
      * Context menu appears when right click of the mouse
-     * in cards list.
+     * in cards list, and acts on all selected cards.
      */
     private void addContextActions() {
 
         // Rename
         renameItem.addActionListener((ActionEvent e) -> {
-
+            List<Card> cards = gui.sidePanel.getSelectedCards();
+
+            // Many cards: rename with pattern
+            if (cards.size() > 1) {
+                String pattern = (String) JOptionPane.showInputDialog(gui,
+                        "New name ({name} = current name, {n} = number):",
+                        "Rename " + cards.size() + " cards",
+                        JOptionPane.PLAIN_MESSAGE, null, null, "{name} ({n})");
+                if (pattern != null && !pattern.isBlank()) {
+                    gui.sidePanel.runBulkOperation(() -> BulkOperations.rename(cards, pattern));
+                }
+                return;
+            }
 
             // Get new name
-            Card card = gui.sidePanel.getSelectedCard();
+            Card card = cards.get(0);
             String newName = (String) JOptionPane.showInputDialog(gui,
                     "New name:",
                     "Rename \"" + card.toString() + "\" card",
@@ -98,21 +132,39 @@ class ContextMenu extends JPopupMenu implements View {
             if (!newName.equals("")) {
 
                 // Rename card
-                Controller.renameCard(card, newName);
-                
-                // Refresh cards list
-                gui.sidePanel.refreshCardsList();
+                File file = Controller.renameCard(card, newName);
+
+                // Update cards list
+                if (file != null) {
+                    gui.events.publish(EventBus.CARD_CHANGED, card.getFile());
+                    gui.events.publish(EventBus.CARD_CHANGED, file);
+                }
             }
         });
 
-        // Delete
-        deleteItem.addActionListener((ActionEvent e) -> {
+        // Duplicate
+        duplicateItem.addActionListener((ActionEvent e) -> {
+            List<Card> cards = gui.sidePanel.getSelectedCards();
+            gui.sidePanel.runBulkOperation(() -> BulkOperations.duplicate(cards));
+        });
 
-            // Delete card
-            Controller.deleteCard(gui.sidePanel.getSelectedCard());
+        // Move
+        moveItem.addActionListener((ActionEvent e) -> {
+            List<Card> cards = gui.sidePanel.getSelectedCards();
 
-            // Refresh cards list
-            gui.sidePanel.refreshCardsList();
+            // Folder chooser
+            JFileChooser folderChooser = new JFileChooser(Model.touchDirectory(Model.CARDS_FOLDER));
+            folderChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+            if (folderChooser.showDialog(gui, "Move") == JFileChooser.APPROVE_OPTION) {
+                File folder = folderChooser.getSelectedFile();
+                gui.sidePanel.runBulkOperation(() -> BulkOperations.move(cards, folder));
+            }
+        });
+
+        // Delete
+        deleteItem.addActionListener((ActionEvent e) -> {
+            List<Card> cards = gui.sidePanel.getSelectedCards();
+            gui.sidePanel.runBulkOperation(() -> BulkOperations.delete(cards));
         });
     }
 
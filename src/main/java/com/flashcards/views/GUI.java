@@ -4,14 +4,20 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.JSplitPane;
+import javax.swing.LookAndFeel;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.UIManager;
 import javax.swing.border.EmptyBorder;
 import javax.swing.plaf.basic.BasicSplitPaneUI;
 
+import com.flashcards.controllers.EventBus;
 import com.jthemedetecor.OsThemeDetector;
 
 /**
@@ -21,25 +27,49 @@ import com.jthemedetecor.OsThemeDetector;
  * This is the main view class, which implements all view classes.
  * </p>
  * 
+ * <p>
+ * By default (fast startup), the window is shown at once, with the
+ * default look and feel, while the system look and feel, the OS theme
+ * and the cards are loaded in background. With the
+ * <code>flashcards.fastStartup</code> system property set to
+ * <code>false</code>, look and feel and theme are loaded first.
+ * Startup times are recorded by {@link StartupTimer}.
+ * </p>
+ * 
  * @see {@link com.flashcards.App}
  */
 public class GUI extends JFrame implements View {
 
+    // Fast startup (window first, look and feel and theme in background)
+    static final boolean FAST_STARTUP = !"false".equals(System.getProperty("flashcards.fastStartup"));
+
     // Look and Feel
     private static boolean isSysLaf;
     static {
-        try {
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-            isSysLaf = true;
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            isSysLaf = false;
+        if (!FAST_STARTUP) {
+            try {
+                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+                isSysLaf = true;
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                isSysLaf = false;
+            }
+            StartupTimer.done(StartupTimer.LOOK_AND_FEEL);
         }
     }
 
-    // OS Theme
-    private static final OsThemeDetector detector = OsThemeDetector.getDetector();
-    public static Theme osTheme = detector.isDark() ? Theme.DARK : Theme.LIGHT;
+    // Look and feel loaded (in fast startup)
+    private boolean lafLoaded = !FAST_STARTUP;
+
+    // OS Theme (null until detected, or once applied)
+    private OsThemeDetector detector;
+    public static Theme osTheme = Theme.LIGHT;
+
+    // OS theme changes (value: the theme)
+    static final EventBus.Topic<Theme> THEME_CHANGED = new EventBus.Topic<>("theme changed");
+
+    // App events, between views
+    final EventBus events = new EventBus();
 
     // Root panel
     private JPanel rootPanel;
@@ -54,6 +84,7 @@ public class GUI extends JFrame implements View {
 
     /**
      * Initializes the GUI and shows it.
+     * Must be called in the Event Dispatch Thread.
      */
     public GUI() {
 
@@ -65,11 +96,11 @@ public class GUI extends JFrame implements View {
         cardPanel = new CardPanel(this);
 
         // OS Theme
-        if (isSysLaf) {
-            detector.registerListener(isDark -> {
-                if (isDark) { setTheme(Theme.DARK); }
-                else { setTheme(Theme.LIGHT); }
-            }); setTheme(osTheme);
+        if (!FAST_STARTUP) {
+            detector = OsThemeDetector.getDetector();
+            osTheme = detector.isDark() ? Theme.DARK : Theme.LIGHT;
+            StartupTimer.done(StartupTimer.THEME);
+            applyOsTheme();
         }
         
         // Make view
@@ -84,6 +115,87 @@ public class GUI extends JFrame implements View {
         
         // Default view
         setDefaultView();
+        SwingUtilities.invokeLater(() -> StartupTimer.mark("first frame"));
+
+        // Look and feel and theme
+        if (FAST_STARTUP) {
+            loadLookAndFeel();
+            detectOsTheme();
+        }
+    }
+
+    /**
+     * Loads the system look and feel classes in background,
+     * then sets it and updates all components.
+     */
+    private void loadLookAndFeel() {
+        new SwingWorker<LookAndFeel, Void>() {
+
+            @Override
+            protected LookAndFeel doInBackground() throws Exception {
+                return (LookAndFeel) Class.forName(UIManager.getSystemLookAndFeelClassName())
+                        .getDeclaredConstructor().newInstance();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    UIManager.setLookAndFeel(get());
+                    isSysLaf = true;
+                    SwingUtilities.updateComponentTreeUI(GUI.this);
+                    resetMinimumSize();
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    isSysLaf = false;
+                }
+                lafLoaded = true;
+                StartupTimer.done(StartupTimer.LOOK_AND_FEEL);
+                applyOsTheme();
+            }
+        }.execute();
+    }
+
+    /**
+     * Detects the OS theme in background.
+     */
+    private void detectOsTheme() {
+        new SwingWorker<OsThemeDetector, Void>() {
+
+            private boolean isDark;
+
+            @Override
+            protected OsThemeDetector doInBackground() throws Exception {
+                OsThemeDetector detector = OsThemeDetector.getDetector();
+                isDark = detector.isDark();
+                return detector;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    detector = get();
+                    osTheme = isDark ? Theme.DARK : Theme.LIGHT;
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+                StartupTimer.done(StartupTimer.THEME);
+                applyOsTheme();
+            }
+        }.execute();
+    }
+
+    /**
+     * Applies the OS theme and follows its changes, once the system look
+     * and feel is set and the theme is detected.
+     */
+    private void applyOsTheme() {
+        if (!isSysLaf || !lafLoaded || detector == null) {
+            return;
+        }
+        detector.registerListener(isDark -> events.publish(THEME_CHANGED, isDark ? Theme.DARK : Theme.LIGHT));
+        events.subscribe(THEME_CHANGED, themes -> setTheme(themes.get(themes.size() - 1)));
+        setTheme(osTheme);
+        detector = null;
     }
 
     @Override
@@ -195,6 +307,19 @@ public class GUI extends JFrame implements View {
         
         // Actions
         addSplitPaneActions();
+        addWindowActions();
+    }
+
+    /**
+     * Adds window actions, like saving a waiting autosave on close.
+     */
+    void addWindowActions() {
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                cardPanel.autosaveNow();
+            }
+        });
     }
 
     /**
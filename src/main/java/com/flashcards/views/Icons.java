@@ -0,0 +1,112 @@
+package com.flashcards.views;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.image.BaseMultiResolutionImage;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+
+/**
+ * Icons of the app, shared by all views.
+ *
+ * <p>
+ * Icon images are read from the classpath (<code>name_black.png</code>
+ * for the light theme, <code>name_white.png</code> for the dark theme),
+ * once. Each icon is scaled once for the common display scales and the
+ * scales of the screens, and kept as a multi-resolution image, so the
+ * sharpest variant is painted on HiDPI screens and changing theme
+ * doesn't read or scale images.
+ * </p>
+ *
+ * @see {@link Theme}
+ */
+final class Icons {
+
+    // Refresh icon name
+    static final String REFRESH = "refresh";
+
+    // Display scales (besides the screens ones)
+    private static final double[] SCALES = { 1, 1.25, 1.5, 1.75, 2, 3 };
+
+    // Icons (by name, theme and size)
+    private static final Map<String, ImageIcon> icons = new ConcurrentHashMap<>();
+
+    private Icons() {}
+
+    /**
+     * Gets an icon.
+     *
+     * @param name  the icon name
+     * @param theme the theme
+     * @param size  the width and height, in user space pixels
+     * @return the icon (empty if it can't be read)
+     */
+    static ImageIcon get(String name, Theme theme, int size) {
+        return icons.computeIfAbsent(name + "/" + theme + "/" + size, key -> load(name, theme, size));
+    }
+
+    /**
+     * Reads and scales an icon.
+     */
+    private static ImageIcon load(String name, Theme theme, int size) {
+        String resource = "/" + name + (theme == Theme.DARK ? "_white" : "_black") + ".png";
+        try (InputStream in = Icons.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Icon not found: " + resource);
+            }
+            BufferedImage image = ImageIO.read(in);
+
+            // A variant for each scale
+            SortedSet<Integer> sizes = new TreeSet<>();
+            for (double scale : scales()) {
+                sizes.add((int) Math.round(size * scale));
+            }
+            Image[] variants = new Image[sizes.size()];
+            int i = 0;
+            for (int variantSize : sizes) {
+                variants[i++] = scale(image, variantSize);
+            }
+            return new ImageIcon(new BaseMultiResolutionImage(variants), name);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new ImageIcon();
+        }
+    }
+
+    /**
+     * Gets the common display scales and the scales of the screens.
+     */
+    private static SortedSet<Double> scales() {
+        SortedSet<Double> scales = new TreeSet<>();
+        for (double scale : SCALES) {
+            scales.add(scale);
+        }
+        if (!GraphicsEnvironment.isHeadless()) {
+            for (GraphicsDevice device : GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices()) {
+                scales.add(device.getDefaultConfiguration().getDefaultTransform().getScaleX());
+            }
+        }
+        return scales;
+    }
+
+    /**
+     * Scales an image to a square size (area averaging, for smooth downscaling).
+     */
+    private static BufferedImage scale(BufferedImage image, int size) {
+        BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.drawImage(image.getScaledInstance(size, size, Image.SCALE_SMOOTH), 0, 0, null);
+        graphics.dispose();
+        return scaled;
+    }
+}
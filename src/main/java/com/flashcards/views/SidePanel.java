@@ -2,26 +2,51 @@ package com.flashcards.views;
 
 import java.awt.BorderLayout;
 import java.awt.Dimension;
-import java.awt.Image;
 import java.awt.event.ActionEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 import javax.swing.Box;
 import javax.swing.BoxLayout;
+import javax.swing.DefaultListModel;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JList;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
-import com.flashcards.controllers.Controller;
+import com.flashcards.controllers.BulkOperations;
+import com.flashcards.controllers.EventBus;
 import com.flashcards.models.Card;
+import com.flashcards.models.DeckWatcher;
 import com.flashcards.models.Model;
+import com.flashcards.models.NameIndex;
+import com.flashcards.models.SearchIndex;
 
 /**
  * View representing the <code>side panel</code>.
@@ -43,7 +68,46 @@ class SidePanel extends JPanel implements View {
     private JButton refreshButton;
     private JScrollPane scrollPane;
     private JList<Card> cardsList;
-    private ImageIcon refreshIcon;
+    private CardListModel cardsListModel;
+    private Theme refreshIconTheme;
+    private JProgressBar progressBar;
+    private JTextField searchField;
+    private JTextField filterField;
+
+    // Full-text index of the cards (updated on refresh, changed cards only)
+    private final SearchIndex searchIndex = new SearchIndex();
+
+    // Search index writer (indexes the loaded cards, one load at a time)
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Name index of the cards (and the list version it was built with)
+    private NameIndex nameIndex;
+    private int nameIndexVersion = -1;
+
+    // Current search/filter (null when not searching)
+    private SwingWorker<List<Card>, Void> searcher;
+
+    // Cards folder watcher (null if folder can't be watched)
+    private DeckWatcher deckWatcher;
+
+    // Current cards loader (null when not loading)
+    private CardsLoader cardsLoader;
+
+    // Folder changes received while loading
+    private List<Runnable> pendingChanges;
+
+    // Max search results shown
+    private static final int SEARCH_LIMIT = 500;
+
+    // Cards given to the search index at a time, while loading
+    private static final int INDEX_CHUNK = 1024;
+
+    // Refresh icon size
+    private static final int REFRESH_ICON_SIZE = 20;
 
     /**
      * Initialize this view.
@@ -62,8 +126,12 @@ class SidePanel extends JPanel implements View {
         label = new JLabel();
         refreshButton = new JButton();
         scrollPane = new JScrollPane();
-        cardsList = new JList<>();
-        refreshIcon = new ImageIcon();
+        cardsListModel = new CardListModel();
+        cardsList = new JList<>(cardsListModel);
+        progressBar = new JProgressBar();
+        searchField = new JTextField();
+        filterField = new JTextField();
+        pendingChanges = new ArrayList<>();
 
         // Make view
         style();
@@ -72,6 +140,11 @@ class SidePanel extends JPanel implements View {
 
         // Get cards
         refreshCardsList();
+        watchCardsFolder();
+
+        // Events
+        gui.events.subscribe(EventBus.DECK_CHANGED, folders -> refreshCardsList());
+        gui.events.subscribe(EventBus.CARD_CHANGED, files -> cardsChanged(files));
     }
 
     @Override
@@ -84,14 +157,36 @@ class SidePanel extends JPanel implements View {
         // Label
         label.setText("Cards");
 
-        // Refresh icon
-        refreshIcon.setImage(new ImageIcon("./src/main/resources/refresh_black.png",
-                "Refresh").getImage()
-                .getScaledInstance(20, 20, Image.SCALE_SMOOTH));
+        // Cards list (fixed cell height, and cells as wide as the view,
+        // so cells aren't measured one by one)
+        resetCellSize();
+        cardsList.addPropertyChangeListener(e -> {
+            String property = e.getPropertyName();
+            if (property.equals("UI") || property.equals("font") || property.equals("cellRenderer")) {
+                resetCellSize();
+            }
+        });
+        scrollPane.getViewport().addComponentListener(new ComponentAdapter() {
+
+            @Override
+            public void componentResized(ComponentEvent e) {
+                resetCellSize();
+            }
+        });
 
         // Refresh button
-        refreshButton.setIcon(refreshIcon);
+        setRefreshIcon(GUI.osTheme);
+        refreshButton.setToolTipText("Refresh");
         refreshButton.setBorder(new EmptyBorder(0, 0, 0, 0));
+
+        // Search and filter fields
+        searchField.setToolTipText("Search in questions and answers");
+        filterField.setToolTipText("Filter by card name");
+
+        // Progress bar
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
     }
 
     @Override
@@ -104,9 +199,20 @@ class SidePanel extends JPanel implements View {
         panel.add(Box.createHorizontalGlue());
         panel.add(refreshButton);
 
+        // Top panel
+        JPanel topPanel = new JPanel();
+        topPanel.setLayout(new BoxLayout(topPanel, BoxLayout.Y_AXIS));
+        topPanel.add(panel);
+        topPanel.add(searchField);
+        topPanel.add(filterField);
+        panel.setAlignmentX(LEFT_ALIGNMENT);
+        searchField.setAlignmentX(LEFT_ALIGNMENT);
+        filterField.setAlignmentX(LEFT_ALIGNMENT);
+
         // Side panel
-        add(panel, BorderLayout.NORTH);
+        add(topPanel, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
+        add(progressBar, BorderLayout.SOUTH);
 
         // Scroll pane
         scrollPane.setViewportView(cardsList);
@@ -116,10 +222,277 @@ class SidePanel extends JPanel implements View {
      * Gets all cards in default <code>Cards Folder</code> and sets in
      * <code>Cards list</code>.
      * 
+     * <p>
+     * Cards are lazy: just file names are listed, and each card
+     * is read when opened. The folder is read in background, and cards
+     * are shown as they are found. A loading in progress is cancelled.
+     * </p>
+     * 
      * @see {@link com.flashcards.models.Model#CARDS_FOLDER}
      */
     void refreshCardsList() {
-        cardsList.setListData(Model.getCardsList());
+        if (cardsLoader != null) {
+            cardsLoader.cancel(true);
+        }
+        cardsListModel.clear();
+        pendingChanges.clear();
+        progressBar.setString("Loading cards");
+        progressBar.setVisible(true);
+
+        cardsLoader = new CardsLoader();
+        cardsLoader.execute();
+    }
+
+    /**
+     * Searches cards with the text in <code>Search field</code> and
+     * filters them by name with <code>Filter field</code>, in background.
+     * Only the final ranked results are shown in <code>Cards list</code>,
+     * and results of older keystrokes are dropped. With both fields
+     * empty, all cards are shown.
+     * 
+     * @see {@link com.flashcards.models.SearchIndex}
+     * @see {@link com.flashcards.models.NameIndex}
+     */
+    private void search() {
+        String query = searchField.getText();
+        String filter = filterField.getText();
+        if (searcher != null) {
+            searcher.cancel(true);
+            searcher = null;
+        }
+        if (query.isBlank() && filter.isBlank()) {
+            cardsList.setModel(cardsListModel);
+            return;
+        }
+
+        // Name index snapshot (rebuilt in background if cards changed)
+        int version = cardsListModel.getVersion();
+        NameIndex currentNames = nameIndexVersion == version ? nameIndex : null;
+        Card[] cards = !filter.isBlank() && currentNames == null ? cardsListModel.toArray() : null;
+        SearchIndex index = searchIndex;
+
+        searcher = new SwingWorker<List<Card>, Void>() {
+
+            private NameIndex names = currentNames;
+
+            @Override
+            protected List<Card> doInBackground() {
+
+                // Content search
+                List<File> files = query.isBlank() ? null : index.search(query, SEARCH_LIMIT);
+                if (filter.isBlank()) {
+                    List<Card> results = new ArrayList<>();
+                    for (File file : files) {
+                        results.add(new Card(file));
+                    }
+                    return results;
+                }
+
+                // Name filter
+                if (names == null) {
+                    names = new NameIndex(cards);
+                }
+                List<Card> results = names.filter(filter, files == null ? SEARCH_LIMIT : Integer.MAX_VALUE);
+                if (files != null) {
+                    Set<File> found = new HashSet<>(files);
+                    results.removeIf(card -> !found.contains(card.getFile()));
+                }
+                return results.size() > SEARCH_LIMIT ? results.subList(0, SEARCH_LIMIT) : results;
+            }
+
+            @Override
+            protected void done() {
+                if (searcher != this) {
+                    return;
+                }
+                searcher = null;
+                if (names != null && version == cardsListModel.getVersion()) {
+                    nameIndex = names;
+                    nameIndexVersion = version;
+                }
+                try {
+                    DefaultListModel<Card> results = new DefaultListModel<>();
+                    for (Card card : get()) {
+                        int i = cardsListModel.indexOf(card.getFile());
+                        results.addElement(i >= 0 ? cardsListModel.getElementAt(i) : card);
+                    }
+                    cardsList.setModel(results);
+                } catch (InterruptedException | CancellationException e) {
+                    // Replaced by a newer search
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                }
+            }
+        };
+        searcher.execute();
+    }
+
+    /**
+     * Background loader of <code>Cards list</code>.
+     * 
+     * <p>
+     * Publishes cards while reading the folder. Each published chunk
+     * is merged into the sorted list. The files are also given in chunks
+     * to the search index, which reads the changed cards in the
+     * <code>search-index</code> thread.
+     * </p>
+     * 
+     * @see {@link com.flashcards.models.SearchIndex.Loader}
+     */
+    private class CardsLoader extends SwingWorker<Void, Card> {
+
+        @Override
+        protected Void doInBackground() throws IOException {
+            File folder = Model.touchDirectory(Model.CARDS_FOLDER);
+            SearchIndex.Loader indexing = searchIndex.load(folder, Model.getLoadParallelism());
+            List<File> chunk = new ArrayList<>(INDEX_CHUNK);
+            boolean complete = false;
+            try {
+                Model.forEachLazyCard(folder, card -> {
+                    if (isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    publish(card);
+                    chunk.add(card.getFile());
+                    if (chunk.size() == INDEX_CHUNK) {
+                        List<File> files = List.copyOf(chunk);
+                        indexer.execute(() -> indexing.addAll(files));
+                        chunk.clear();
+                    }
+                });
+                complete = true;
+            } finally {
+                List<File> files = List.copyOf(chunk);
+                boolean allFiles = complete;
+                indexer.execute(() -> {
+                    indexing.addAll(files);
+                    indexing.end(allFiles);
+                });
+            }
+            return null;
+        }
+
+        @Override
+        protected void process(List<Card> cards) {
+            if (cardsLoader != this) {
+                return;
+            }
+            cardsListModel.addAll(cards);
+            progressBar.setString("Loading cards (" + cardsListModel.getSize() + ")");
+        }
+
+        @Override
+        protected void done() {
+            if (cardsLoader != this) {
+                return;
+            }
+            cardsLoader = null;
+            progressBar.setVisible(false);
+
+            try {
+                get();
+            } catch (InterruptedException | CancellationException e) {
+                // Replaced by a newer loading
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+            }
+
+            // Changes while loading
+            for (Runnable change : pendingChanges) {
+                change.run();
+            }
+            pendingChanges.clear();
+            StartupTimer.done(StartupTimer.CARDS);
+        }
+    }
+
+    /**
+     * Updates <code>Cards list</code> after card files changed
+     * (see {@link EventBus#CARD_CHANGED}).
+     * 
+     * <p>
+     * The changed cards are added, replaced or removed in one update.
+     * If the cards folder can't be watched, changes made outside the app
+     * aren't reported, so the whole list is refreshed.
+     * </p>
+     * 
+     * @param files the changed card files
+     * @see {@link #refreshCardsList()}
+     */
+    private void cardsChanged(List<File> files) {
+        if (deckWatcher == null) {
+            refreshCardsList();
+            return;
+        }
+        applyChange(() -> {
+            List<File> removed = new ArrayList<>();
+            List<Card> changed = new ArrayList<>();
+            for (File file : files) {
+                if (Model.isCardFile(file)) {
+                    changed.add(new Card(file));
+                } else {
+                    removed.add(file);
+                }
+            }
+            cardsListModel.removeAll(removed);
+            cardsListModel.addAll(inCardsFolder(changed));
+        });
+    }
+
+    /**
+     * Watches the default <code>Cards Folder</code> to keep
+     * <code>Cards list</code> up to date. Changes are published as
+     * events, so a burst of changes updates the list once.
+     * 
+     * @see {@link com.flashcards.models.DeckWatcher}
+     */
+    private void watchCardsFolder() {
+        try {
+            deckWatcher = new DeckWatcher(Model.touchDirectory(Model.CARDS_FOLDER),
+                    new DeckWatcher.Listener() {
+
+                @Override
+                public void cardAdded(Card card) {
+                    searchIndex.update(card);
+                    gui.events.publish(EventBus.CARD_CHANGED, card.getFile());
+                }
+
+                @Override
+                public void cardUpdated(Card card) {
+                    searchIndex.update(card);
+                    gui.events.publish(EventBus.CARD_CHANGED, card.getFile());
+                }
+
+                @Override
+                public void cardRemoved(File file) {
+                    searchIndex.remove(file);
+                    gui.events.publish(EventBus.CARD_CHANGED, file);
+                }
+
+                @Override
+                public void deckChanged() {
+                    gui.events.publish(EventBus.DECK_CHANGED, Model.touchDirectory(Model.CARDS_FOLDER));
+                }
+            });
+            deckWatcher.start();
+        } catch (IOException e) {
+            e.printStackTrace();
+            deckWatcher = null;
+        }
+    }
+
+    /**
+     * Applies a folder change to <code>Cards list</code>,
+     * or keeps it for when loading ends.
+     * 
+     * @param change the change
+     */
+    private void applyChange(Runnable change) {
+        if (cardsLoader != null) {
+            pendingChanges.add(change);
+        } else {
+            change.run();
+        }
     }
 
     /**
@@ -131,15 +504,182 @@ class SidePanel extends JPanel implements View {
         return cardsList.getSelectedValue();
     }
 
+    /**
+     * Gets all selected cards in side panel list.
+     * 
+     * @return the selected cards, in list order
+     */
+    List<Card> getSelectedCards() {
+        return cardsList.getSelectedValuesList();
+    }
+
+    /**
+     * Opens the card before or after the selected one, in list order.
+     * 
+     * @param delta the list positions to move (negative for previous)
+     */
+    void openRelativeCard(int delta) {
+        int size = cardsList.getModel().getSize();
+        if (size == 0) {
+            return;
+        }
+        int index = cardsList.getSelectedIndex();
+        if (index < 0) {
+            index = delta > 0 ? 0 : size - 1;
+        } else {
+            index = Math.max(0, Math.min(size - 1, index + delta));
+        }
+        cardsList.setSelectedIndex(index);
+        cardsList.ensureIndexIsVisible(index);
+        gui.cardPanel.setCard(cardsList.getModel(), index);
+    }
+
+    /**
+     * Gets all cards in side panel list (not only the search results).
+     * 
+     * @return the cards, sorted by name
+     */
+    Card[] getCards() {
+        return cardsListModel.toArray();
+    }
+
+    /**
+     * Runs a bulk operation in background, then applies all its changes
+     * to <code>Cards list</code> in one update and reports failures.
+     * 
+     * @param operation the bulk operation
+     * @see {@link com.flashcards.controllers.BulkOperations}
+     */
+    void runBulkOperation(Supplier<BulkOperations.Result> operation) {
+        progressBar.setString("Working");
+        progressBar.setVisible(true);
+
+        new SwingWorker<BulkOperations.Result, Void>() {
+
+            @Override
+            protected BulkOperations.Result doInBackground() {
+                return operation.get();
+            }
+
+            @Override
+            protected void done() {
+                progressBar.setVisible(cardsLoader != null);
+                try {
+                    BulkOperations.Result result = get();
+                    applyChange(() -> {
+                        cardsListModel.removeAll(result.getRemoved());
+                        cardsListModel.addAll(inCardsFolder(result.getAdded()));
+                    });
+                    search();
+                    if (!result.getFailures().isEmpty()) {
+                        showFailures(result.getFailures());
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    e.printStackTrace();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Filters the cards in the default <code>Cards Folder</code>.
+     * 
+     * @param cards the cards
+     * @return the cards in the folder
+     */
+    private List<Card> inCardsFolder(List<Card> cards) {
+        File folder = new File(Model.CARDS_FOLDER).getAbsoluteFile().toPath().normalize().toFile();
+        List<Card> filtered = new ArrayList<>();
+        for (Card card : cards) {
+            File parent = card.getFile().getAbsoluteFile().toPath().normalize().getParent().toFile();
+            if (parent.equals(folder)) {
+                filtered.add(card);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * Shows the cards a bulk operation couldn't change.
+     * 
+     * @param failures the failures, by card file
+     */
+    private void showFailures(Map<File, IOException> failures) {
+        StringBuilder message = new StringBuilder();
+        message.append(failures.size()).append(" card(s) failed:");
+        int shown = 0;
+        for (Map.Entry<File, IOException> failure : failures.entrySet()) {
+            if (shown++ == 10) {
+                message.append("\n...");
+                break;
+            }
+            message.append("\n").append(Model.getFileName(failure.getKey()))
+                    .append(": ").append(failure.getValue().getMessage());
+        }
+        JOptionPane.showMessageDialog(gui, message, "Cards", JOptionPane.WARNING_MESSAGE);
+    }
+
+    /**
+     * Updates the look and feel of this panel and of its context menu
+     * (which isn't in the component tree).
+     */
+    @Override
+    public void updateUI() {
+        super.updateUI();
+        if (contextMenu != null) {
+            SwingUtilities.updateComponentTreeUI(contextMenu);
+        }
+    }
+
     @Override
     public void setTheme(Theme theme) {
+        setRefreshIcon(theme);
+    }
+
+    /**
+     * Sets the height of <code>Cards list</code> cells from the current
+     * font and look and feel, and their width to the visible width.
+     */
+    private void resetCellSize() {
+        Card sample = new Card(new File("Card." + Card.EXTENSION));
+        int height = cardsList.getCellRenderer()
+                .getListCellRendererComponent(cardsList, sample, 0, false, false)
+                .getPreferredSize().height;
+        if (cardsList.getFixedCellHeight() != height) {
+            cardsList.setFixedCellHeight(height);
+        }
+        int width = Math.max(1, scrollPane.getViewport().getExtentSize().width);
+        if (cardsList.getFixedCellWidth() != width) {
+            cardsList.setFixedCellWidth(width);
+        }
+    }
+
+    /**
+     * Sets the refresh icon of a theme. The first time, the icon is read
+     * in background (see {@link Icons}); then it's shared.
+     * 
+     * @param theme the theme
+     */
+    private void setRefreshIcon(Theme theme) {
+        refreshIconTheme = theme;
+        new SwingWorker<ImageIcon, Void>() {
 
-        String fileName;
-        if (theme == Theme.DARK) { fileName = "./src/main/resources/refresh_white.png"; }
-        else { fileName = "./src/main/resources/refresh_black.png"; }
+            @Override
+            protected ImageIcon doInBackground() {
+                return Icons.get(Icons.REFRESH, theme, REFRESH_ICON_SIZE);
+            }
 
-        refreshIcon.setImage(new ImageIcon(fileName,"Refresh").getImage()
-                .getScaledInstance(20, 20, Image.SCALE_SMOOTH));
+            @Override
+            protected void done() {
+                try {
+                    if (refreshIconTheme == theme) {
+                        refreshButton.setIcon(get());
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    e.printStackTrace();
+                }
+            }
+        }.execute();
     }
 
     @Override
@@ -149,6 +689,7 @@ class SidePanel extends JPanel implements View {
         addMouseActions();
         addKeyActions();
         addButtonActions();
+        addSearchActions();
     }
 
     /**
@@ -165,16 +706,18 @@ class SidePanel extends JPanel implements View {
                 // Open (double click)
                 if (e.getClickCount() == 2 && e.getButton() == MouseEvent.BUTTON1) {
                     if (!cardsList.isSelectionEmpty()) {
-                        gui.cardPanel.setCard(cardsList.getSelectedValue());
+                        gui.cardPanel.setCard(cardsList.getModel(), cardsList.getSelectedIndex());
                     }
                 }
 
                 // Show context menu (right click)
                 if (e.getButton() == MouseEvent.BUTTON3) {
 
-                    // Select with right click
+                    // Select with right click (keeps a multiple selection)
                     int i = cardsList.locationToIndex(e.getPoint());
-                    cardsList.setSelectedIndex(i);
+                    if (!cardsList.isSelectedIndex(i)) {
+                        cardsList.setSelectedIndex(i);
+                    }
 
                     // Context menu
                     if (!cardsList.isSelectionEmpty()) {
@@ -188,7 +731,7 @@ class SidePanel extends JPanel implements View {
     /**
      * Adds keyboard behaviors to cards list.
      * Like open card when press <code>Enter</code>
-     * and delete card when press <code>Delete</code>.
+     * and delete selected cards when press <code>Delete</code>.
      */
     private void addKeyActions() {
 
@@ -199,15 +742,15 @@ class SidePanel extends JPanel implements View {
                 // Open card (Enter key)
                 if (e.getKeyCode() == KeyEvent.VK_ENTER) {
                     if (!cardsList.isSelectionEmpty()) {
-                        gui.cardPanel.setCard(cardsList.getSelectedValue());
+                        gui.cardPanel.setCard(cardsList.getModel(), cardsList.getSelectedIndex());
                     }
                 }
 
-                // Delete card (Delete key)
+                // Delete cards (Delete key)
                 if (e.getKeyCode() == KeyEvent.VK_DELETE) {
                     if (!cardsList.isSelectionEmpty()) {
-                        Controller.deleteCard(cardsList.getSelectedValue());
-                        refreshCardsList();
+                        List<Card> cards = getSelectedCards();
+                        runBulkOperation(() -> BulkOperations.delete(cards));
                     }
                 }
             }
@@ -226,4 +769,25 @@ class SidePanel extends JPanel implements View {
         });
     }
 
+    /**
+     * Adds search behaviors, like search (and filter) while typing
+     * in <code>Search field</code> and <code>Filter field</code>.
+     */
+    private void addSearchActions() {
+
+        DocumentListener listener = new DocumentListener() {
+
+            @Override
+            public void insertUpdate(DocumentEvent e) { search(); }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) { search(); }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {}
+        };
+        searchField.getDocument().addDocumentListener(listener);
+        filterField.getDocument().addDocumentListener(listener);
+    }
+
 }
@@ -0,0 +1,66 @@
+package com.flashcards.views;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Startup timing of the GUI.
+ *
+ * <p>
+ * Records the time of startup events, in milliseconds since the JVM
+ * started: <code>first frame</code> (the window is shown) and
+ * <code>interactive</code> (look and feel, theme and cards are loaded).
+ * With the <code>flashcards.startupTiming</code> system property set to
+ * <code>true</code>, events are printed as they happen.
+ * </p>
+ */
+final class StartupTimer {
+
+    // Startup tasks, done in background after the first frame
+    static final String LOOK_AND_FEEL = "look and feel";
+    static final String THEME = "theme";
+    static final String CARDS = "cards";
+
+    private static final boolean PRINT = Boolean.getBoolean("flashcards.startupTiming");
+    private static final long START = ProcessHandle.current().info().startInstant()
+            .map(instant -> instant.toEpochMilli())
+            .orElse(System.currentTimeMillis());
+
+    private static final Map<String, Long> events = new LinkedHashMap<>();
+    private static final Set<String> pending = new LinkedHashSet<>(List.of(LOOK_AND_FEEL, THEME, CARDS));
+
+    private StartupTimer() {}
+
+    /**
+     * Records an event (only its first time).
+     *
+     * @param event the event name
+     */
+    static synchronized void mark(String event) {
+        if (!events.containsKey(event)) {
+            long time = System.currentTimeMillis() - START;
+            events.put(event, time);
+            if (PRINT) {
+                System.err.println("startup: " + event + " at " + time + " ms");
+            }
+        }
+    }
+
+    /**
+     * Records that a startup task is done, and
+     * <code>interactive</code> when all are.
+     *
+     * @param task the task ({@link #LOOK_AND_FEEL}, {@link #THEME} or {@link #CARDS})
+     */
+    static synchronized void done(String task) {
+        if (pending.remove(task)) {
+            mark(task);
+            if (pending.isEmpty()) {
+                mark("interactive");
+            }
+        }
+    }
+}